@@ -0,0 +1,45 @@
+package com.trivia.demo.service;
+
+import com.trivia.demo.model.Question;
+
+import java.util.ArrayList;
+import java.util.List;
+
+final class BenchmarkData {
+
+    private BenchmarkData(){
+    }
+
+    /**
+     * Vragen in de vorm waarin opentdb ze levert, inclusief de HTML-entities die het meest voorkomen.
+     */
+    static List<Question> rawQuestions(int amount){
+        List<Question> questions = new ArrayList<>(amount);
+        for(int i = 0; i < amount; i++){
+            Question question = new Question();
+            question.setType("multiple");
+            question.setDifficulty("medium");
+            question.setCategory("Entertainment: Books");
+            question.setQuestion("In &quot;The Lord of the Rings&quot;, who is Frodo&#039;s gardener? (" + i + ")");
+            question.setCorrect_answer("Samwise Gamgee");
+            question.setIncorrect_answers(List.of("Meriadoc &amp; Peregrin", "Bilbo Baggins", "Fredegar &quot;Fatty&quot; Bolger"));
+            questions.add(question);
+        }
+        return questions;
+    }
+
+    static List<Question> copies(List<Question> questions){
+        List<Question> copies = new ArrayList<>(questions.size());
+        for(Question source : questions){
+            Question copy = new Question();
+            copy.setType(source.getType());
+            copy.setDifficulty(source.getDifficulty());
+            copy.setCategory(source.getCategory());
+            copy.setQuestion(source.getQuestion());
+            copy.setCorrect_answer(source.getCorrect_answer());
+            copy.setIncorrect_answers(source.getIncorrect_answers());
+            copies.add(copy);
+        }
+        return copies;
+    }
+}
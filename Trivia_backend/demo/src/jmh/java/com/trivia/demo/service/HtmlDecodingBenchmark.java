@@ -0,0 +1,49 @@
+package com.trivia.demo.service;
+
+import com.trivia.demo.model.Question;
+import org.apache.commons.text.StringEscapeUtils;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Vergelijkt {@link HtmlEntityDecoder} met commons-text op de strings van een opentdb-batch: vragen met
+ * entities en antwoorden die meestal geen {@code &} bevatten.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class HtmlDecodingBenchmark {
+    private String[] strings;
+
+    @Setup
+    public void setUp(){
+        List<String> strings = new ArrayList<>();
+        for(Question question : BenchmarkData.rawQuestions(50)){
+            strings.add(question.getQuestion());
+            strings.add(question.getCorrect_answer());
+            strings.addAll(question.getIncorrect_answers());
+        }
+        this.strings = strings.toArray(String[]::new);
+    }
+
+    @Benchmark
+    public void commonsText(Blackhole blackhole){
+        for(String value : this.strings){
+            blackhole.consume(StringEscapeUtils.unescapeHtml4(value));
+        }
+    }
+
+    @Benchmark
+    public void htmlEntityDecoder(Blackhole blackhole){
+        for(String value : this.strings){
+            blackhole.consume(HtmlEntityDecoder.decode(value));
+        }
+    }
+}
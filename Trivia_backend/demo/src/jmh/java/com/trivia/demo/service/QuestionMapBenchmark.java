@@ -0,0 +1,107 @@
+package com.trivia.demo.service;
+
+import com.trivia.demo.config.TriviaProperties;
+import com.trivia.demo.intefaces.IQuestionMap;
+import com.trivia.demo.model.AnswerDTO;
+import com.trivia.demo.model.Question;
+import com.trivia.demo.store.QuestionBank;
+import com.trivia.demo.store.QuestionIndex;
+import com.trivia.demo.store.QuestionStore;
+import com.trivia.demo.store.ScoreBoard;
+import com.trivia.demo.store.SeenQuestions;
+import com.trivia.demo.upstream.AdmissionController;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Meet addQuestion, getQuestionsForSession en checkAnswer onder contention (schrijvers en lezers
+ * tegelijk) voor elke IQuestionMap-implementatie.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class QuestionMapBenchmark {
+    private static final int SESSIONS = 10_000;
+
+    @Param({"in-memory", "bounded", "flyweight"})
+    public String store;
+
+    private IQuestionMap questionMap;
+    private TriviaQuestionService service;
+    private List<Question> questions;
+    private String[] sessionIds;
+
+    @Setup
+    public void setUp(){
+        this.questionMap = switch(this.store){
+            case "bounded" -> new BoundedQuestionMap(SESSIONS * 2, 500, Duration.ofMinutes(30), null);
+            case "flyweight" -> new FlyweightQuestionMap(new QuestionStore(), SESSIONS * 2, 500, Duration.ofMinutes(30), null);
+            default -> new InMemoryQuestionMap();
+        };
+        this.questions = BenchmarkData.rawQuestions(50);
+        this.questions.forEach(QuestionDecoder::decode);
+        this.sessionIds = new String[SESSIONS];
+        for(int i = 0; i < SESSIONS; i++){
+            this.sessionIds[i] = "sessie-" + i;
+            for(Question question : this.questions.subList(0, 10)){
+                this.questionMap.addQuestion(this.sessionIds[i], question);
+            }
+        }
+        TriviaProperties properties = new TriviaProperties();
+        this.service = new TriviaQuestionService(null, null, this.questionMap, null, null,
+                new AnswerTokenSigner(properties), new QuestionBank(properties),
+                new QuestionIndex(new QuestionStore()), new SeenQuestions(new QuestionStore(), properties),
+                new AdmissionController(properties), new PrefetchBuffer(properties), new ScoreBoard(properties), properties);
+    }
+
+    @State(Scope.Thread)
+    public static class Answers {
+        AnswerDTO byText = new AnswerDTO();
+        AnswerDTO byId = new AnswerDTO();
+    }
+
+    @Benchmark
+    @Group("contended")
+    @GroupThreads(1)
+    public void addQuestion(){
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        this.questionMap.addQuestion(this.sessionIds[random.nextInt(SESSIONS)], this.questions.get(random.nextInt(this.questions.size())));
+    }
+
+    @Benchmark
+    @Group("contended")
+    @GroupThreads(3)
+    public Question getQuestionsForSession(){
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        return this.questionMap.getQuestionsForSession(this.sessionIds[random.nextInt(SESSIONS)])
+                .get(this.questions.get(random.nextInt(10)).getQuestion());
+    }
+
+    @Benchmark
+    @Threads(4)
+    public boolean checkAnswerByText(Answers answers){
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        Question question = this.questions.get(random.nextInt(10));
+        answers.byText.setQuestion(question.getQuestion());
+        answers.byText.setChosen_answer(question.getCorrect_answer());
+        return this.service.checkAnswer(this.sessionIds[random.nextInt(SESSIONS)], answers.byText);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public boolean checkAnswerById(Answers answers){
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        Question question = this.questions.get(random.nextInt(10));
+        answers.byId.setQuestion_id(question.getId());
+        answers.byId.setQuestion(question.getQuestion());
+        answers.byId.setChosen_answer(question.getCorrect_answer());
+        return this.service.checkAnswer(this.sessionIds[random.nextInt(SESSIONS)], answers.byId);
+    }
+}
@@ -0,0 +1,49 @@
+package com.trivia.demo.service;
+
+import com.trivia.demo.model.Question;
+import com.trivia.demo.model.QuestionDTO;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Meet de stappen van een opentdb-response naar QuestionDTOs: HTML-decoding en de QuestionDTO-constructor
+ * (kopie en shuffle van de antwoorden).
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class QuestionMappingBenchmark {
+    private List<Question> rawQuestions;
+    private Question decodedQuestion;
+
+    @Setup
+    public void setUp(){
+        this.rawQuestions = BenchmarkData.rawQuestions(50);
+        this.decodedQuestion = BenchmarkData.copies(this.rawQuestions).getFirst();
+        QuestionDecoder.decode(this.decodedQuestion);
+    }
+
+    @Benchmark
+    public List<Question> copyBaseline(){
+        return BenchmarkData.copies(this.rawQuestions);
+    }
+
+    @Benchmark
+    public List<Question> decodeBatch(){
+        List<Question> questions = BenchmarkData.copies(this.rawQuestions);
+        for(Question question : questions){
+            QuestionDecoder.decode(question);
+        }
+        return questions;
+    }
+
+    @Benchmark
+    public QuestionDTO questionDTO(){
+        return new QuestionDTO(this.decodedQuestion);
+    }
+}
@@ -0,0 +1,59 @@
+package com.trivia.demo.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.trivia.demo.model.EncodedQuestionDTO;
+import com.trivia.demo.model.Question;
+import com.trivia.demo.model.QuestionDTO;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Meet een {@code /questions} response van 10 vragen uit de store: DTOs aanmaken en naar JSON bytes
+ * schrijven, met gewone {@link QuestionDTO}s en met {@link EncodedQuestionDTO}s.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class QuestionSerializationBenchmark {
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final ByteArrayOutputStream output = new ByteArrayOutputStream(8192);
+    private List<Question> questions;
+
+    @Setup
+    public void setUp(){
+        this.questions = BenchmarkData.rawQuestions(10);
+        this.questions.forEach(QuestionDecoder::decode);
+    }
+
+    @Benchmark
+    public int questionDTOs() throws IOException{
+        List<QuestionDTO> response = new ArrayList<>(this.questions.size());
+        for(Question question : this.questions){
+            response.add(new QuestionDTO(question));
+        }
+        return this.write(response);
+    }
+
+    @Benchmark
+    public int encodedQuestionDTOs() throws IOException{
+        List<QuestionDTO> response = new ArrayList<>(this.questions.size());
+        for(Question question : this.questions){
+            response.add(new EncodedQuestionDTO(question));
+        }
+        return this.write(response);
+    }
+
+    private int write(List<QuestionDTO> response) throws IOException{
+        this.output.reset();
+        this.objectMapper.writeValue(this.output, response);
+        return this.output.size();
+    }
+}
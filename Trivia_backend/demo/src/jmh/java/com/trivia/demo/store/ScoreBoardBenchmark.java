@@ -0,0 +1,123 @@
+package com.trivia.demo.store;
+
+import com.trivia.demo.config.TriviaProperties;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.*;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * Meet het bijwerken van scores (de helft van de antwoorden goed, dus veel verschuivingen in de top-K) met
+ * gelijktijdige ranglijst-lezers, met per sessie steeds een nieuwe vraag. Vergeleken worden de
+ * {@link ScoreBoard} en een variant met een enkele lock om een HashMap en een TreeSet, die net zo per sessie
+ * ontdubbelt met een {@link CompactIntSet}. Het aantal schrijvende threads is in te stellen met {@code -t}
+ * ({@code record}) of vast 3 schrijvers tegen 1 lezer ({@code contended}).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ScoreBoardBenchmark {
+    private static final int SESSIONS = 10_000;
+    private static final int TOP = 100;
+
+    @Param({"scoreboard", "synchronized"})
+    public String board;
+
+    private Scores scores;
+    private String[] sessionIds;
+    private AtomicIntegerArray nextQuestion;
+
+    @Setup
+    public void setUp(){
+        TriviaProperties properties = new TriviaProperties();
+        properties.getLeaderboard().setSize(TOP);
+        if("synchronized".equals(this.board)){
+            this.scores = new SynchronizedScores();
+        } else {
+            ScoreBoard scoreBoard = new ScoreBoard(properties);
+            this.scores = new Scores() {
+                @Override
+                public void record(String sessionId, int questionId, boolean correct){
+                    scoreBoard.record(sessionId, questionId, correct);
+                }
+
+                @Override
+                public Object leaderboard(){
+                    return scoreBoard.leaderboard(TOP);
+                }
+            };
+        }
+        this.sessionIds = new String[SESSIONS];
+        for(int i = 0; i < SESSIONS; i++){
+            this.sessionIds[i] = "sessie-" + i;
+        }
+        this.nextQuestion = new AtomicIntegerArray(SESSIONS);
+    }
+
+    @Benchmark
+    public void record(){
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int session = random.nextInt(SESSIONS);
+        this.scores.record(this.sessionIds[session], this.nextQuestion.getAndIncrement(session), random.nextBoolean());
+    }
+
+    @Benchmark
+    @Group("contended")
+    @GroupThreads(3)
+    public void recordWhileReading(){
+        this.record();
+    }
+
+    @Benchmark
+    @Group("contended")
+    @GroupThreads(1)
+    public Object leaderboard(){
+        return this.scores.leaderboard();
+    }
+
+    private interface Scores {
+        void record(String sessionId, int questionId, boolean correct);
+
+        Object leaderboard();
+    }
+
+    private static final class SynchronizedScores implements Scores {
+        private final Map<String, SessionScore> scores = new HashMap<>();
+        private final TreeSet<Map.Entry<String, Long>> ranking = new TreeSet<>(
+                Map.Entry.<String, Long>comparingByValue().reversed().thenComparing(Map.Entry.comparingByKey()));
+
+        @Override
+        public synchronized void record(String sessionId, int questionId, boolean correct){
+            SessionScore score = this.scores.computeIfAbsent(sessionId, k -> new SessionScore());
+            if(!score.attempted.add(questionId)){
+                return;
+            }
+            score.answered++;
+            if(!correct){
+                return;
+            }
+            this.ranking.remove(Map.entry(sessionId, score.correct));
+            score.correct++;
+            this.ranking.add(Map.entry(sessionId, score.correct));
+            if(this.ranking.size() > TOP){
+                this.ranking.pollLast();
+            }
+        }
+
+        @Override
+        public synchronized Object leaderboard(){
+            return new ArrayList<>(this.ranking);
+        }
+    }
+
+    private static final class SessionScore {
+        private final CompactIntSet attempted = new CompactIntSet();
+        private long correct;
+        private long answered;
+    }
+}
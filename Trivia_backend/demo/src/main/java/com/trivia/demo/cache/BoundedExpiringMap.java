@@ -0,0 +1,275 @@
+package com.trivia.demo.cache;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.ref.WeakReference;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+
+/**
+ * Begrensde map met idle-TTL. De keys worden over een aantal stripes verdeeld; elke stripe is een
+ * {@link LinkedHashMap} in access-order met een eigen lock, zodat eviction (LRU binnen de stripe)
+ * nooit de hele map blokkeert. Verlopen entries worden bij het lezen en bij elke schrijfactie in
+ * dezelfde stripe opgeruimd, en daarnaast periodiek door een gedeelde daemon-thread, zodat eviction listeners
+ * (en de metrics die daarop leunen) ook op een node zonder verkeer afgaan. De sweep houdt de map alleen zwak
+ * vast en stopt zodra de map opgeruimd is.
+ */
+public class BoundedExpiringMap<K, V> {
+    private static final Logger log = LoggerFactory.getLogger(BoundedExpiringMap.class);
+    private static final int STRIPE_BITS = 4;
+    private static final int STRIPES = 1 << STRIPE_BITS;
+    private static final Duration MIN_SWEEP_PERIOD = Duration.ofSeconds(1);
+    private static final Duration MAX_SWEEP_PERIOD = Duration.ofMinutes(1);
+    private static final ScheduledExecutorService SWEEPER = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "trivia-expiry-sweeper");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final Stripe<K, V>[] stripes;
+    private final long idleTtlNanos;
+    private final int maxEntriesPerStripe;
+    private final EvictionListener<K, V> listener;
+    private final LongSupplier nanoClock;
+
+    public BoundedExpiringMap(int maxEntries, Duration idleTtl, EvictionListener<K, V> listener){
+        this(maxEntries, idleTtl, listener, System::nanoTime);
+        Duration period = idleTtl.compareTo(MAX_SWEEP_PERIOD) > 0 ? MAX_SWEEP_PERIOD : idleTtl;
+        sweepPeriodically(this, period.compareTo(MIN_SWEEP_PERIOD) < 0 ? MIN_SWEEP_PERIOD : period);
+    }
+
+    @SuppressWarnings("unchecked")
+    BoundedExpiringMap(int maxEntries, Duration idleTtl, EvictionListener<K, V> listener, LongSupplier nanoClock){
+        if(maxEntries < 1 || idleTtl.isZero() || idleTtl.isNegative()){
+            throw new IllegalArgumentException("maxEntries en idleTtl moeten positief zijn.");
+        }
+        this.stripes = new Stripe[STRIPES];
+        for(int i = 0; i < STRIPES; i++){
+            this.stripes[i] = new Stripe<>();
+        }
+        this.idleTtlNanos = idleTtl.toNanos();
+        this.maxEntriesPerStripe = Math.max(1, (maxEntries + STRIPES - 1) / STRIPES);
+        this.listener = listener == null ? (key, value, cause) -> {} : listener;
+        this.nanoClock = nanoClock;
+    }
+
+    public V get(K key){
+        Stripe<K, V> stripe = this.stripeFor(key);
+        long now = this.nanoClock.getAsLong();
+        V expired = null;
+        V value = null;
+        stripe.lock.lock();
+        try{
+            Node<V> node = stripe.entries.get(key);
+            if(node != null){
+                if(this.isExpired(node, now)){
+                    stripe.entries.remove(key);
+                    expired = node.value;
+                } else {
+                    node.lastAccess = now;
+                    value = node.value;
+                }
+            }
+        } finally {
+            stripe.lock.unlock();
+        }
+        if(expired != null){
+            this.listener.onEviction(key, expired, RemovalCause.EXPIRED);
+        }
+        return value;
+    }
+
+    public void put(K key, V value){
+        this.compute(key, k -> value, true);
+    }
+
+    public V computeIfAbsent(K key, Function<? super K, ? extends V> mappingFunction){
+        return this.compute(key, mappingFunction, false);
+    }
+
+    public V remove(K key){
+        Stripe<K, V> stripe = this.stripeFor(key);
+        Node<V> node;
+        stripe.lock.lock();
+        try{
+            node = stripe.entries.remove(key);
+        } finally {
+            stripe.lock.unlock();
+        }
+        if(node == null){
+            return null;
+        }
+        this.listener.onEviction(key, node.value, RemovalCause.EXPLICIT);
+        return node.value;
+    }
+
+    public int size(){
+        int size = 0;
+        for(Stripe<K, V> stripe : this.stripes){
+            stripe.lock.lock();
+            try{
+                size += stripe.entries.size();
+            } finally {
+                stripe.lock.unlock();
+            }
+        }
+        return size;
+    }
+
+    public void forEachValue(Consumer<? super V> action){
+        for(Stripe<K, V> stripe : this.stripes){
+            stripe.lock.lock();
+            try{
+                stripe.entries.values().forEach(node -> action.accept(node.value));
+            } finally {
+                stripe.lock.unlock();
+            }
+        }
+    }
+
+    static void sweepPeriodically(BoundedExpiringMap<?, ?> map, Duration period){
+        Sweep sweep = new Sweep(map);
+        sweep.future = SWEEPER.scheduleWithFixedDelay(sweep, period.toNanos(), period.toNanos(), TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Loopt alle stripes langs en verwijdert verlopen entries.
+     */
+    void cleanUp(){
+        long now = this.nanoClock.getAsLong();
+        for(Stripe<K, V> stripe : this.stripes){
+            List<Map.Entry<K, V>> evicted = new ArrayList<>();
+            stripe.lock.lock();
+            try{
+                this.evictExpired(stripe, now, evicted);
+            } finally {
+                stripe.lock.unlock();
+            }
+            evicted.forEach(e -> this.listener.onEviction(e.getKey(), e.getValue(), RemovalCause.EXPIRED));
+        }
+    }
+
+    private V compute(K key, Function<? super K, ? extends V> mappingFunction, boolean replace){
+        Stripe<K, V> stripe = this.stripeFor(key);
+        long now = this.nanoClock.getAsLong();
+        List<Map.Entry<K, V>> expired = new ArrayList<>();
+        List<Map.Entry<K, V>> evicted = new ArrayList<>();
+        V result;
+        stripe.lock.lock();
+        try{
+            this.evictExpired(stripe, now, expired);
+            Node<V> node = stripe.entries.get(key);
+            if(node != null && !replace){
+                node.lastAccess = now;
+                result = node.value;
+            } else {
+                result = mappingFunction.apply(key);
+                if(result == null){
+                    return null;
+                }
+                stripe.entries.put(key, new Node<>(result, now));
+                Iterator<Map.Entry<K, Node<V>>> it = stripe.entries.entrySet().iterator();
+                while(stripe.entries.size() > this.maxEntriesPerStripe && it.hasNext()){
+                    Map.Entry<K, Node<V>> eldest = it.next();
+                    it.remove();
+                    evicted.add(new AbstractMap.SimpleImmutableEntry<>(eldest.getKey(), eldest.getValue().value));
+                }
+            }
+        } finally {
+            stripe.lock.unlock();
+        }
+        expired.forEach(e -> this.listener.onEviction(e.getKey(), e.getValue(), RemovalCause.EXPIRED));
+        evicted.forEach(e -> this.listener.onEviction(e.getKey(), e.getValue(), RemovalCause.SIZE));
+        return result;
+    }
+
+    private void evictExpired(Stripe<K, V> stripe, long now, List<Map.Entry<K, V>> evicted){
+        Iterator<Map.Entry<K, Node<V>>> it = stripe.entries.entrySet().iterator();
+        while(it.hasNext()){
+            Map.Entry<K, Node<V>> eldest = it.next();
+            if(!this.isExpired(eldest.getValue(), now)){
+                return;
+            }
+            it.remove();
+            evicted.add(new AbstractMap.SimpleImmutableEntry<>(eldest.getKey(), eldest.getValue().value));
+        }
+    }
+
+    private boolean isExpired(Node<V> node, long now){
+        return now - node.lastAccess >= this.idleTtlNanos;
+    }
+
+    /**
+     * Kiest de stripe op de hoogste bits van de (gemixte) hash: de LinkedHashMap van de stripe indexeert op de
+     * laagste bits, en zouden die voor alle keys in een stripe gelijk zijn, dan viel alles in een fractie van
+     * de buckets.
+     */
+    private Stripe<K, V> stripeFor(K key){
+        return this.stripes[stripeIndex(key)];
+    }
+
+    static int stripeIndex(Object key){
+        return (key.hashCode() * 0x9E3779B9) >>> (Integer.SIZE - STRIPE_BITS);
+    }
+
+    public enum RemovalCause {
+        EXPIRED,
+        SIZE,
+        EXPLICIT
+    }
+
+    private static final class Sweep implements Runnable {
+        private final WeakReference<BoundedExpiringMap<?, ?>> map;
+        private volatile ScheduledFuture<?> future;
+
+        private Sweep(BoundedExpiringMap<?, ?> map){
+            this.map = new WeakReference<>(map);
+        }
+
+        @Override
+        public void run(){
+            BoundedExpiringMap<?, ?> current = this.map.get();
+            if(current == null){
+                ScheduledFuture<?> scheduled = this.future;
+                if(scheduled != null){
+                    scheduled.cancel(false);
+                }
+                return;
+            }
+            try{
+                current.cleanUp();
+            } catch (RuntimeException ex){
+                log.warn("Opruimen van verlopen entries mislukt: {}", ex.getMessage());
+            }
+        }
+    }
+
+    @FunctionalInterface
+    public interface EvictionListener<K, V> {
+        void onEviction(K key, V value, RemovalCause cause);
+    }
+
+    private static final class Stripe<K, V> {
+        private final ReentrantLock lock = new ReentrantLock();
+        private final LinkedHashMap<K, Node<V>> entries = new LinkedHashMap<>(16, 0.75f, true);
+    }
+
+    private static final class Node<V> {
+        private final V value;
+        private long lastAccess;
+
+        private Node(V value, long lastAccess){
+            this.value = value;
+            this.lastAccess = lastAccess;
+        }
+    }
+}
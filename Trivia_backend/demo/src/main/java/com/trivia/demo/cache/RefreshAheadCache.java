@@ -0,0 +1,135 @@
+package com.trivia.demo.cache;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.FunctionTimer;
+import io.micrometer.core.instrument.MeterRegistry;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+
+/**
+ * Cache met een TTL per entry. Entries die bijna verlopen worden op de achtergrond ververst
+ * (refresh-ahead), en gelijktijdige loads voor dezelfde key worden via {@link SingleFlight} gedeeld.
+ */
+public class RefreshAheadCache<K, V> {
+    private final String name;
+    private final Function<K, Mono<V>> loader;
+    private final long ttlNanos;
+    private final long refreshAfterNanos;
+    private final LongSupplier nanoClock;
+    private final Map<K, Entry<V>> entries = new ConcurrentHashMap<>();
+    private final SingleFlight<K, V> loads = new SingleFlight<>();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder refreshes = new LongAdder();
+    private final LongAdder loadFailures = new LongAdder();
+    private final LongAdder loadCount = new LongAdder();
+    private final LongAdder loadTimeNanos = new LongAdder();
+
+    public RefreshAheadCache(String name, Duration ttl, Duration refreshBeforeExpiry, Function<K, Mono<V>> loader){
+        this(name, ttl, refreshBeforeExpiry, loader, System::nanoTime);
+    }
+
+    RefreshAheadCache(String name, Duration ttl, Duration refreshBeforeExpiry, Function<K, Mono<V>> loader, LongSupplier nanoClock){
+        if(ttl.isZero() || ttl.isNegative()){
+            throw new IllegalArgumentException("TTL van cache " + name + " moet positief zijn.");
+        }
+        this.name = name;
+        this.loader = loader;
+        this.ttlNanos = ttl.toNanos();
+        this.refreshAfterNanos = Math.max(0, ttl.minus(refreshBeforeExpiry).toNanos());
+        this.nanoClock = nanoClock;
+    }
+
+    public Mono<V> get(K key){
+        return Mono.defer(() -> {
+            Entry<V> entry = this.entries.get(key);
+            if(entry != null){
+                long age = this.nanoClock.getAsLong() - entry.loadedAt();
+                if(age < this.ttlNanos){
+                    this.hits.increment();
+                    if(age >= this.refreshAfterNanos && !this.loads.isInFlight(key)){
+                        this.refreshes.increment();
+                        this.load(key).subscribe(value -> {}, ex -> {});
+                    }
+                    return Mono.just(entry.value());
+                }
+            }
+            this.misses.increment();
+            return this.load(key);
+        });
+    }
+
+    /**
+     * Geeft de laatst geladen waarde terug, ook als deze verlopen is.
+     */
+    public Optional<V> getIfPresent(K key){
+        Entry<V> entry = this.entries.get(key);
+        return entry == null ? Optional.empty() : Optional.of(entry.value());
+    }
+
+    public void invalidate(K key){
+        this.entries.remove(key);
+    }
+
+    private Mono<V> load(K key){
+        return this.loads.execute(key, () -> {
+            long start = this.nanoClock.getAsLong();
+            return this.loader.apply(key)
+                    .doOnNext(value -> {
+                        long now = this.nanoClock.getAsLong();
+                        this.entries.put(key, new Entry<>(value, now));
+                        this.loadCount.increment();
+                        this.loadTimeNanos.add(now - start);
+                    })
+                    .doOnError(ex -> this.loadFailures.increment());
+        });
+    }
+
+    public long hitCount(){
+        return this.hits.sum();
+    }
+
+    public long missCount(){
+        return this.misses.sum();
+    }
+
+    public long loadCount(){
+        return this.loadCount.sum();
+    }
+
+    public long loadFailureCount(){
+        return this.loadFailures.sum();
+    }
+
+    public double totalLoadTimeMillis(){
+        return this.loadTimeNanos.sum() / 1_000_000.0;
+    }
+
+    public void bindTo(MeterRegistry registry){
+        FunctionCounter.builder("trivia.cache.hits", this.hits, LongAdder::sum)
+                .tag("cache", this.name).register(registry);
+        FunctionCounter.builder("trivia.cache.misses", this.misses, LongAdder::sum)
+                .tag("cache", this.name).register(registry);
+        FunctionCounter.builder("trivia.cache.refreshes", this.refreshes, LongAdder::sum)
+                .tag("cache", this.name).register(registry);
+        FunctionCounter.builder("trivia.cache.load.failures", this.loadFailures, LongAdder::sum)
+                .tag("cache", this.name).register(registry);
+        FunctionCounter.builder("trivia.cache.shared.loads", this.loads, SingleFlight::sharedCalls)
+                .tag("cache", this.name).register(registry);
+        FunctionTimer.builder("trivia.cache.loads", this,
+                        RefreshAheadCache::loadCount, RefreshAheadCache::totalLoadTimeMillis, TimeUnit.MILLISECONDS)
+                .tag("cache", this.name).register(registry);
+    }
+
+    private record Entry<V>(V value, long loadedAt) {
+    }
+}
@@ -0,0 +1,48 @@
+package com.trivia.demo.cache;
+
+import reactor.core.publisher.Mono;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Bundelt gelijktijdige aanroepen per key tot een enkele upstream call. Callers die binnenkomen
+ * terwijl een call voor dezelfde key nog loopt, delen het resultaat van die call.
+ */
+public class SingleFlight<K, V> {
+    private final Map<K, Mono<V>> inFlight = new ConcurrentHashMap<>();
+    private final LongAdder calls = new LongAdder();
+    private final LongAdder sharedCalls = new LongAdder();
+
+    public Mono<V> execute(K key, Supplier<Mono<V>> call){
+        return Mono.defer(() -> {
+            boolean[] created = new boolean[1];
+            Mono<V> mono = this.inFlight.computeIfAbsent(key, k -> {
+                created[0] = true;
+                return call.get()
+                        .doFinally(signal -> this.inFlight.remove(k))
+                        .cache();
+            });
+            if(created[0]){
+                this.calls.increment();
+            } else {
+                this.sharedCalls.increment();
+            }
+            return mono;
+        });
+    }
+
+    public boolean isInFlight(K key){
+        return this.inFlight.containsKey(key);
+    }
+
+    public long calls(){
+        return this.calls.sum();
+    }
+
+    public long sharedCalls(){
+        return this.sharedCalls.sum();
+    }
+}
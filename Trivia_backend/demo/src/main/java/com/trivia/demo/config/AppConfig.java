@@ -1,14 +1,41 @@
 package com.trivia.demo.config;
 
 import com.trivia.demo.intefaces.IQuestionMap;
+import com.trivia.demo.service.BoundedQuestionMap;
+import com.trivia.demo.service.FlyweightQuestionMap;
 import com.trivia.demo.service.InMemoryQuestionMap;
+import com.trivia.demo.store.QuestionStore;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
 @Configuration
+@EnableConfigurationProperties(TriviaProperties.class)
 public class AppConfig {
+    private static final Logger log = LoggerFactory.getLogger(AppConfig.class);
+
     @Bean
+    @ConditionalOnProperty(name = "trivia.sessions.store", havingValue = "in-memory", matchIfMissing = true)
     public IQuestionMap questionMap(){
         return new InMemoryQuestionMap();
     }
+
+    @Bean
+    @ConditionalOnProperty(name = "trivia.sessions.store", havingValue = "bounded")
+    public IQuestionMap boundedQuestionMap(TriviaProperties properties){
+        TriviaProperties.Sessions sessions = properties.getSessions();
+        return new BoundedQuestionMap(sessions.getMaxSessions(), sessions.getMaxQuestionsPerSession(), sessions.getIdleTtl(),
+                (sessionId, questions, cause) -> log.debug("Sessie {} verwijderd ({})", sessionId, cause));
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "trivia.sessions.store", havingValue = "flyweight")
+    public IQuestionMap flyweightQuestionMap(QuestionStore questionStore, TriviaProperties properties){
+        TriviaProperties.Sessions sessions = properties.getSessions();
+        return new FlyweightQuestionMap(questionStore, sessions.getMaxSessions(), sessions.getMaxQuestionsPerSession(),
+                sessions.getIdleTtl(), (sessionId, questionIds, cause) -> log.debug("Sessie {} verwijderd ({})", sessionId, cause));
+    }
 }
@@ -0,0 +1,24 @@
+package com.trivia.demo.config;
+
+import com.trivia.demo.intefaces.IQuestionMap;
+import com.trivia.demo.store.QuestionStore;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class MetricsConfig {
+
+    @Bean
+    public MeterBinder questionMapMetrics(IQuestionMap questionMap, QuestionStore questionStore){
+        return registry -> {
+            Gauge.builder("trivia.sessions.active", questionMap, IQuestionMap::sessionCount)
+                    .description("Aantal sessies in de question map").register(registry);
+            Gauge.builder("trivia.sessions.questions", questionMap, IQuestionMap::questionCount)
+                    .description("Aantal vragen dat sessies in de question map vasthouden").register(registry);
+            Gauge.builder("trivia.questions.stored", questionStore, QuestionStore::size)
+                    .description("Aantal unieke vragen in de gedeelde question store").register(registry);
+        };
+    }
+}
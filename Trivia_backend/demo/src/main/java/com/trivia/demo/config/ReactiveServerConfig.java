@@ -0,0 +1,21 @@
+package com.trivia.demo.config;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.web.embedded.netty.NettyReactiveWebServerFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Met het profiel "reactive" draait de applicatie als WebFlux-applicatie. Omdat Tomcat ook op het
+ * classpath staat zou Spring Boot dan Tomcat als reactive server kiezen; deze factory zorgt dat het
+ * Netty wordt, zodat de hele keten (server, controller en WebClient) op dezelfde event loops draait.
+ */
+@Configuration
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveServerConfig {
+
+    @Bean
+    public NettyReactiveWebServerFactory nettyReactiveWebServerFactory(){
+        return new NettyReactiveWebServerFactory();
+    }
+}
@@ -0,0 +1,125 @@
+package com.trivia.demo.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "trivia")
+public class TriviaProperties {
+    private Pool pool = new Pool();
+    private Cache cache = new Cache();
+    private Sessions sessions = new Sessions();
+    private AnswerToken answerToken = new AnswerToken();
+    private Upstream upstream = new Upstream();
+    private Questions questions = new Questions();
+    private Bank bank = new Bank();
+    private BulkImport bulkImport = new BulkImport();
+    private Admission admission = new Admission();
+    private Prefetch prefetch = new Prefetch();
+    private Rooms rooms = new Rooms();
+    private Leaderboard leaderboard = new Leaderboard();
+
+    @Getter
+    @Setter
+    public static class Pool {
+        private boolean enabled = true;
+        private int lowWaterMark = 20;
+        private int batchSize = 50;
+        private int capacity = 200;
+    }
+
+    @Getter
+    @Setter
+    public static class Cache {
+        private Duration ttl = Duration.ofHours(6);
+        private Duration refreshBeforeExpiry = Duration.ofMinutes(10);
+    }
+
+    @Getter
+    @Setter
+    public static class Sessions {
+        private String store = "in-memory";
+        private Duration idleTtl = Duration.ofMinutes(30);
+        private int maxSessions = 100_000;
+        private int maxQuestionsPerSession = 500;
+        private String repeatAvoidance = "local";
+    }
+
+    @Getter
+    @Setter
+    public static class AnswerToken {
+        private boolean enabled = false;
+        private String secret;
+    }
+
+    @Getter
+    @Setter
+    public static class Upstream {
+        private String baseUrl = "https://opentdb.com";
+        private int burst = 1;
+        private Duration refillPeriod = Duration.ofSeconds(5);
+        private Duration timeout = Duration.ofSeconds(10);
+        private int circuitFailureThreshold = 5;
+        private Duration circuitOpenDuration = Duration.ofSeconds(30);
+    }
+
+    @Getter
+    @Setter
+    public static class Questions {
+        private int maxAmount = 500;
+        private int pageConcurrency = 2;
+    }
+
+    @Getter
+    @Setter
+    public static class Bank {
+        private boolean enabled = false;
+        private String path = "data/question-bank.bin";
+    }
+
+    @Getter
+    @Setter
+    public static class BulkImport {
+        private String path;
+        private Long categoryId;
+        private int batchSize = 1000;
+        private int parallelism = Runtime.getRuntime().availableProcessors();
+    }
+
+    @Getter
+    @Setter
+    public static class Admission {
+        private boolean enabled = true;
+        private int initialLimit = 50;
+        private int minLimit = 2;
+        private int maxLimit = 200;
+        private int maxQueue = 1000;
+        private Duration queueTimeout = Duration.ofSeconds(10);
+        private Duration latencyTarget = Duration.ofSeconds(5);
+    }
+
+    @Getter
+    @Setter
+    public static class Prefetch {
+        private boolean enabled = false;
+        private Duration ttl = Duration.ofMinutes(2);
+    }
+
+    @Getter
+    @Setter
+    public static class Rooms {
+        private int maxRooms = 1000;
+        private int maxQuestions = 50;
+        private Duration idleTtl = Duration.ofHours(2);
+    }
+
+    @Getter
+    @Setter
+    public static class Leaderboard {
+        private int size = 100;
+    }
+}
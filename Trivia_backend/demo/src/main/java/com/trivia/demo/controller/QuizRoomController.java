@@ -0,0 +1,56 @@
+package com.trivia.demo.controller;
+
+import com.trivia.demo.model.AnswerDTO;
+import com.trivia.demo.model.AnswerResultDTO;
+import com.trivia.demo.model.RoomDTO;
+import com.trivia.demo.model.RoomResultsDTO;
+import com.trivia.demo.service.QuizRoomService;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+@RestController
+@RequestMapping("/rooms")
+public class QuizRoomController {
+
+    private final QuizRoomService quizRoomService;
+
+    public QuizRoomController(QuizRoomService quizRoomService){
+        this.quizRoomService = quizRoomService;
+    }
+
+    @PostMapping
+    public Mono<RoomDTO> createRoom(@RequestParam(name = "amount", defaultValue = "10") Integer amount,
+                                    @RequestParam(name = "categoryId", required = false) Long categoryId){
+        return quizRoomService.createRoom(amount, categoryId);
+    }
+
+    @GetMapping("/{roomId}")
+    public ResponseEntity<RoomDTO> getRoom(@PathVariable String roomId){
+        return ResponseEntity.ok(quizRoomService.getRoom(roomId));
+    }
+
+    @GetMapping(value = "/{roomId}/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public Flux<ServerSentEvent<String>> events(@PathVariable String roomId){
+        return quizRoomService.events(roomId);
+    }
+
+    @PostMapping("/{roomId}/next")
+    public ResponseEntity<RoomDTO> next(@PathVariable String roomId, @RequestHeader("x-hostKey") String hostKey){
+        return ResponseEntity.ok(quizRoomService.next(roomId, hostKey));
+    }
+
+    @PostMapping("/{roomId}/answers")
+    public ResponseEntity<AnswerResultDTO> answer(@PathVariable String roomId, @RequestHeader("x-sessionId") String sessionId,
+                                                  @RequestBody AnswerDTO answerDTO){
+        return ResponseEntity.ok(quizRoomService.answer(roomId, sessionId, answerDTO));
+    }
+
+    @GetMapping("/{roomId}/results/{index}")
+    public ResponseEntity<RoomResultsDTO> results(@PathVariable String roomId, @PathVariable int index){
+        return ResponseEntity.ok(quizRoomService.results(roomId, index));
+    }
+}
@@ -3,14 +3,17 @@ package com.trivia.demo.controller;
 import com.trivia.demo.model.*;
 import com.trivia.demo.service.TriviaQuestionService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 import java.util.List;
 
 @RestController
 public class TriviaController {
+    static final String QUESTIONS_MISSING_HEADER = "X-Questions-Missing";
 
     private final TriviaQuestionService triviaQuestionService;
 
@@ -24,11 +27,31 @@ public class TriviaController {
         return triviaQuestionService.getCategories();
     }
 
+    /**
+     * Levert de service minder vragen dan gevraagd (bijvoorbeeld omdat een pagina bij opentdb mislukte), dan
+     * staat het aantal ontbrekende vragen in de header {@value #QUESTIONS_MISSING_HEADER}.
+     */
     @GetMapping("/questions")
-    public Mono<List<QuestionDTO>> getQuestions(@RequestParam(name = "amount", defaultValue = "10") Integer amount,
+    public Mono<ResponseEntity<List<QuestionDTO>>> getQuestions(@RequestParam(name = "amount", defaultValue = "10") Integer amount,
                                                 @RequestParam(name = "categoryId", required = false) Long categoryId,
+                                                @RequestParam(name = "difficulty", required = false) String difficulty,
+                                                @RequestParam(name = "type", required = false) String type,
                                                 @RequestHeader(value = "x-sessionId") String sessionId){
-        return triviaQuestionService.getQuestions(amount,categoryId, sessionId);
+        return triviaQuestionService.getQuestions(amount,categoryId, difficulty, type, sessionId)
+                .map(questions -> {
+                    ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+                    if(questions.size() < amount){
+                        response.header(QUESTIONS_MISSING_HEADER, String.valueOf(amount - questions.size()));
+                    }
+                    return response.body(questions);
+                });
+    }
+
+    @GetMapping(value = "/questions/stream", produces = {MediaType.APPLICATION_NDJSON_VALUE, MediaType.TEXT_EVENT_STREAM_VALUE})
+    public Flux<QuestionDTO> streamQuestions(@RequestParam(name = "amount", defaultValue = "10") Integer amount,
+                                             @RequestParam(name = "categoryId", required = false) Long categoryId,
+                                             @RequestHeader(value = "x-sessionId") String sessionId){
+        return triviaQuestionService.streamQuestions(amount,categoryId, sessionId);
     }
 
     @PostMapping("/checkanswer")
@@ -36,4 +59,19 @@ public class TriviaController {
         return ResponseEntity.ok(triviaQuestionService.checkAnswer(sessionId,answerDTO));
     }
 
+    @PostMapping("/checkanswers")
+    public ResponseEntity<BatchAnswerResultDTO> checkAnswers(@RequestHeader("x-sessionId") String sessionId,@RequestBody List<AnswerDTO> answerDTOs){
+        return ResponseEntity.ok(triviaQuestionService.checkAnswers(sessionId,answerDTOs));
+    }
+
+    @GetMapping("/leaderboard")
+    public ResponseEntity<List<LeaderboardEntryDTO>> getLeaderboard(@RequestParam(name = "limit", defaultValue = "10") Integer limit){
+        return ResponseEntity.ok(triviaQuestionService.getLeaderboard(limit));
+    }
+
+    @GetMapping("/score")
+    public ResponseEntity<ScoreDTO> getScore(@RequestHeader("x-sessionId") String sessionId){
+        return ResponseEntity.ok(triviaQuestionService.getScore(sessionId));
+    }
+
 }
@@ -0,0 +1,7 @@
+package com.trivia.demo.exception;
+
+public class RoomNotFoundException extends RuntimeException{
+    public RoomNotFoundException(String roomId){
+        super("Quizroom: " + roomId + " niet gevonden of verlopen.");
+    }
+}
@@ -0,0 +1,13 @@
+package com.trivia.demo.exception;
+
+import lombok.Getter;
+
+@Getter
+public class TooManyRequestsException extends RuntimeException{
+    private final long retryAfterSeconds;
+
+    public TooManyRequestsException(long retryAfterSeconds){
+        super("Te veel gelijktijdige verzoeken, probeer het over " + retryAfterSeconds + " seconden opnieuw.");
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+}
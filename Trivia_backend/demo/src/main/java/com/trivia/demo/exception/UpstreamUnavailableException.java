@@ -0,0 +1,7 @@
+package com.trivia.demo.exception;
+
+public class UpstreamUnavailableException extends RuntimeException{
+    public UpstreamUnavailableException(String endpoint){
+        super("Trivia API (" + endpoint + ") is tijdelijk niet beschikbaar.");
+    }
+}
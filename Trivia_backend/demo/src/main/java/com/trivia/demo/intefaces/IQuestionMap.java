@@ -2,9 +2,21 @@ package com.trivia.demo.intefaces;
 
 import com.trivia.demo.model.Question;
 
+import java.util.Collections;
 import java.util.Map;
 
 public interface IQuestionMap {
     void addQuestion(String sessionId, Question question);
     Map<String, Question> getQuestionsForSession(String sessionId);
+    int sessionCount();
+
+    /**
+     * Lopende teller, bijgewerkt bij toevoegen en verwijderen, zodat een metrics-scrape geen sessies hoeft te
+     * doorlopen.
+     */
+    long questionCount();
+
+    default Map<Integer, Question> getQuestionsByIdForSession(String sessionId){
+        return Collections.emptyMap();
+    }
 }
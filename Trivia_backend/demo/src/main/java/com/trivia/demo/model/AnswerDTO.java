@@ -6,6 +6,8 @@ import lombok.Setter;
 @Getter
 @Setter
 public class AnswerDTO {
+    private Integer question_id;
     private String question;
     private String chosen_answer;
+    private String answer_token;
 }
@@ -0,0 +1,17 @@
+package com.trivia.demo.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class AnswerResultDTO {
+    private Integer question_id;
+    private String question;
+    private boolean found;
+    private boolean correct;
+}
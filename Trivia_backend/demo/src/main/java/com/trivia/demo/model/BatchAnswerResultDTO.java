@@ -0,0 +1,18 @@
+package com.trivia.demo.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.List;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchAnswerResultDTO {
+    private List<AnswerResultDTO> results;
+    private int total;
+    private int correct;
+}
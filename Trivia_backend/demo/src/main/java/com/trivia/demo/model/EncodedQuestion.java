@@ -0,0 +1,41 @@
+package com.trivia.demo.model;
+
+import com.fasterxml.jackson.core.io.SerializedString;
+
+import java.util.List;
+
+/**
+ * De onveranderlijke velden van een vraag als vooraf ge-escapete UTF-8 JSON strings. Wordt een keer per
+ * vraag aangemaakt en daarna door elke response gedeeld; alleen de volgorde van de antwoorden verschilt.
+ * Het juiste antwoord staat achteraan in {@link #answers}.
+ */
+public final class EncodedQuestion {
+    final SerializedString type;
+    final SerializedString difficulty;
+    final SerializedString category;
+    final SerializedString question;
+    final SerializedString[] answers;
+
+    EncodedQuestion(Question source){
+        this.type = encode(source.getType());
+        this.difficulty = encode(source.getDifficulty());
+        this.category = encode(source.getCategory());
+        this.question = encode(source.getQuestion());
+        List<String> incorrect = source.getIncorrect_answers();
+        int incorrectCount = incorrect == null ? 0 : incorrect.size();
+        this.answers = new SerializedString[incorrectCount + 1];
+        for(int i = 0; i < incorrectCount; i++){
+            this.answers[i] = encode(incorrect.get(i));
+        }
+        this.answers[incorrectCount] = encode(source.getCorrect_answer());
+    }
+
+    private static SerializedString encode(String value){
+        if(value == null){
+            return null;
+        }
+        SerializedString encoded = new SerializedString(value);
+        encoded.asQuotedUTF8();
+        return encoded;
+    }
+}
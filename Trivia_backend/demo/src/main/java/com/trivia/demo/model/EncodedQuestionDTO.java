@@ -0,0 +1,107 @@
+package com.trivia.demo.model;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.SerializableString;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * {@link QuestionDTO} voor vragen uit de gedeelde store. In plaats van de antwoorden te kopieren en te
+ * shufflen, houdt deze DTO alleen een willekeurige volgorde bij; de serializer schrijft de vooraf
+ * ge-encodeerde fragmenten van de {@link EncodedQuestion} direct naar de output.
+ */
+@JsonSerialize(using = EncodedQuestionDTO.Serializer.class)
+public class EncodedQuestionDTO extends QuestionDTO {
+    private final EncodedQuestion encoded;
+    private final int[] order;
+
+    public EncodedQuestionDTO(Question question){
+        this.encoded = question.encoded();
+        this.setId(question.getId());
+        this.setType(question.getType());
+        this.setDifficulty(question.getDifficulty());
+        this.setCategory(question.getCategory());
+        this.setQuestion(question.getQuestion());
+        this.order = shuffledOrder(this.encoded.answers.length);
+    }
+
+    @Override
+    public List<String> getAnswers(){
+        List<String> answers = new ArrayList<>(this.order.length);
+        for(int index : this.order){
+            SerializedString answer = this.encoded.answers[index];
+            answers.add(answer == null ? null : answer.getValue());
+        }
+        return answers;
+    }
+
+    private static int[] shuffledOrder(int size){
+        int[] order = new int[size];
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for(int i = 0; i < size; i++){
+            int j = random.nextInt(i + 1);
+            order[i] = order[j];
+            order[j] = i;
+        }
+        return order;
+    }
+
+    static class Serializer extends StdSerializer<EncodedQuestionDTO> {
+        private static final SerializedString ID = new SerializedString("id");
+        private static final SerializedString TYPE = new SerializedString("type");
+        private static final SerializedString DIFFICULTY = new SerializedString("difficulty");
+        private static final SerializedString CATEGORY = new SerializedString("category");
+        private static final SerializedString QUESTION = new SerializedString("question");
+        private static final SerializedString ANSWERS = new SerializedString("answers");
+        private static final SerializedString ANSWER_TOKEN = new SerializedString("answer_token");
+
+        Serializer(){
+            super(EncodedQuestionDTO.class);
+        }
+
+        @Override
+        public void serialize(EncodedQuestionDTO dto, JsonGenerator generator, SerializerProvider provider) throws IOException{
+            EncodedQuestion encoded = dto.encoded;
+            generator.writeStartObject(dto);
+            if(dto.getId() != null){
+                generator.writeFieldName(ID);
+                generator.writeNumber(dto.getId());
+            }
+            writeField(generator, TYPE, encoded.type);
+            writeField(generator, DIFFICULTY, encoded.difficulty);
+            writeField(generator, CATEGORY, encoded.category);
+            writeField(generator, QUESTION, encoded.question);
+            generator.writeFieldName(ANSWERS);
+            generator.writeStartArray();
+            for(int index : dto.order){
+                writeValue(generator, encoded.answers[index]);
+            }
+            generator.writeEndArray();
+            if(dto.getAnswer_token() != null){
+                generator.writeFieldName(ANSWER_TOKEN);
+                generator.writeString(dto.getAnswer_token());
+            }
+            generator.writeEndObject();
+        }
+
+        private static void writeField(JsonGenerator generator, SerializableString name, SerializableString value) throws IOException{
+            generator.writeFieldName(name);
+            writeValue(generator, value);
+        }
+
+        private static void writeValue(JsonGenerator generator, SerializableString value) throws IOException{
+            if(value == null){
+                generator.writeNull();
+            } else {
+                generator.writeString(value);
+            }
+        }
+    }
+}
@@ -1,5 +1,7 @@
 package com.trivia.demo.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.Setter;
 
@@ -8,10 +10,28 @@ import java.util.List;
 @Getter
 @Setter
 public class Question {
+    private Integer id;
     private String type;
     private String difficulty;
     private String category;
     private String question;
     private String correct_answer;
     private List<String> incorrect_answers;
+    @JsonIgnore
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private transient volatile EncodedQuestion encoded;
+
+    /**
+     * De JSON fragmenten van deze vraag; worden bij de eerste aanroep aangemaakt. Alleen gebruiken voor
+     * vragen die al gedecodeerd zijn en niet meer veranderen.
+     */
+    public EncodedQuestion encoded(){
+        EncodedQuestion current = this.encoded;
+        if(current == null){
+            current = new EncodedQuestion(this);
+            this.encoded = current;
+        }
+        return current;
+    }
 }
@@ -1,5 +1,6 @@
 package com.trivia.demo.model;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
@@ -12,13 +13,18 @@ import java.util.List;
 @Setter
 @NoArgsConstructor
 public class QuestionDTO {
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Integer id;
     private String type;
     private String difficulty;
     private String category;
     private String question;
     private List<String> answers;
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private String answer_token;
 
     public QuestionDTO(Question question){
+        this.id = question.getId();
         this.type = question.getType();
         this.difficulty = question.getDifficulty();
         this.category = question.getCategory();
@@ -0,0 +1,22 @@
+package com.trivia.demo.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class RoomDTO {
+    private String id;
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private String host_key;
+    private Long category_id;
+    private int question_count;
+    private int current_question;
+    private boolean finished;
+    private int players;
+}
@@ -0,0 +1,23 @@
+package com.trivia.demo.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class RoomEvent {
+    public static final String QUESTION = "question";
+    public static final String RESULTS = "results";
+    public static final String FINISHED = "finished";
+
+    private String type;
+    private int index;
+    private QuestionDTO question;
+    private RoomResultsDTO results;
+}
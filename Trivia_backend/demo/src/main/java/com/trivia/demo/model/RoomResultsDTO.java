@@ -0,0 +1,20 @@
+package com.trivia.demo.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.Map;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class RoomResultsDTO {
+    private int index;
+    private String question;
+    private long answered;
+    private long correct;
+    private Map<String, Long> answers;
+}
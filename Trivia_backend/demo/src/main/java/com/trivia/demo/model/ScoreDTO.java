@@ -0,0 +1,16 @@
+package com.trivia.demo.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class ScoreDTO {
+    private String player;
+    private long correct;
+    private long answered;
+}
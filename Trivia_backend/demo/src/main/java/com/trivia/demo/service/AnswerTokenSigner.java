@@ -0,0 +1,125 @@
+package com.trivia.demo.service;
+
+import com.trivia.demo.config.TriviaProperties;
+import com.trivia.demo.exception.InvalidRequestException;
+import com.trivia.demo.model.Question;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Locale;
+
+/**
+ * Maakt en controleert HMAC-ondertekende antwoordtokens. Een token bevat een node-onafhankelijk
+ * vraag-Id (hash van de vraagtekst) en een gesleutelde hash van het juiste antwoord, zodat elke node
+ * met hetzelfde geheim een antwoord kan controleren zonder sessie-state.
+ */
+@Component
+public class AnswerTokenSigner {
+    private static final Logger log = LoggerFactory.getLogger(AnswerTokenSigner.class);
+    private static final String ALGORITHM = "HmacSHA256";
+    private static final byte VERSION = 1;
+    private static final int QUESTION_KEY_LENGTH = 8;
+    private static final int TAG_LENGTH = 12;
+    private static final int TOKEN_LENGTH = 1 + QUESTION_KEY_LENGTH + TAG_LENGTH + TAG_LENGTH;
+    private static final byte ANSWER_DOMAIN = 'A';
+    private static final byte SIGNATURE_DOMAIN = 'S';
+
+    private final boolean enabled;
+    private final ThreadLocal<Mac> mac;
+
+    public AnswerTokenSigner(TriviaProperties properties){
+        TriviaProperties.AnswerToken answerToken = properties.getAnswerToken();
+        this.enabled = answerToken.isEnabled();
+        byte[] secret;
+        if(answerToken.getSecret() == null || answerToken.getSecret().isBlank()){
+            secret = new byte[32];
+            new SecureRandom().nextBytes(secret);
+            if(this.enabled){
+                log.warn("Geen trivia.answer-token.secret ingesteld; tokens zijn alleen geldig op deze node.");
+            }
+        } else {
+            secret = answerToken.getSecret().getBytes(StandardCharsets.UTF_8);
+        }
+        SecretKeySpec key = new SecretKeySpec(secret, ALGORITHM);
+        this.mac = ThreadLocal.withInitial(() -> {
+            try{
+                Mac instance = Mac.getInstance(ALGORITHM);
+                instance.init(key);
+                return instance;
+            } catch (GeneralSecurityException ex){
+                throw new IllegalStateException("Kon " + ALGORITHM + " niet initialiseren.", ex);
+            }
+        });
+    }
+
+    public boolean isEnabled(){
+        return this.enabled;
+    }
+
+    public String sign(Question question){
+        byte[] questionKey = questionKey(question.getQuestion());
+        ByteBuffer token = ByteBuffer.allocate(TOKEN_LENGTH);
+        token.put(VERSION).put(questionKey).put(this.answerTag(questionKey, question.getCorrect_answer()));
+        token.put(this.mac(SIGNATURE_DOMAIN, token.array(), 0, 1 + QUESTION_KEY_LENGTH + TAG_LENGTH));
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(token.array());
+    }
+
+    /**
+     * Controleert of het gekozen antwoord het juiste antwoord is volgens het token. Een ongeldig of
+     * gemanipuleerd token, of een token van een andere vraag, levert een {@link InvalidRequestException} op.
+     */
+    public boolean verify(String answerToken, String questionText, String chosenAnswer){
+        byte[] token;
+        try{
+            token = Base64.getUrlDecoder().decode(answerToken);
+        } catch (IllegalArgumentException ex){
+            throw new InvalidRequestException("Ongeldig antwoordtoken.");
+        }
+        if(token.length != TOKEN_LENGTH || token[0] != VERSION){
+            throw new InvalidRequestException("Ongeldig antwoordtoken.");
+        }
+        int signedLength = 1 + QUESTION_KEY_LENGTH + TAG_LENGTH;
+        byte[] signature = this.mac(SIGNATURE_DOMAIN, token, 0, signedLength);
+        if(!MessageDigest.isEqual(signature, Arrays.copyOfRange(token, signedLength, TOKEN_LENGTH))){
+            throw new InvalidRequestException("Ongeldig antwoordtoken.");
+        }
+        byte[] questionKey = Arrays.copyOfRange(token, 1, 1 + QUESTION_KEY_LENGTH);
+        if(questionText != null && !MessageDigest.isEqual(questionKey, questionKey(questionText))){
+            throw new InvalidRequestException("Antwoordtoken hoort niet bij deze vraag.");
+        }
+        byte[] expectedTag = Arrays.copyOfRange(token, 1 + QUESTION_KEY_LENGTH, signedLength);
+        return chosenAnswer != null && MessageDigest.isEqual(expectedTag, this.answerTag(questionKey, chosenAnswer));
+    }
+
+    private byte[] answerTag(byte[] questionKey, String answer){
+        byte[] normalized = answer.toLowerCase(Locale.ROOT).getBytes(StandardCharsets.UTF_8);
+        byte[] input = ByteBuffer.allocate(questionKey.length + normalized.length).put(questionKey).put(normalized).array();
+        return this.mac(ANSWER_DOMAIN, input, 0, input.length);
+    }
+
+    private byte[] mac(byte domain, byte[] input, int offset, int length){
+        Mac instance = this.mac.get();
+        instance.update(domain);
+        instance.update(input, offset, length);
+        return Arrays.copyOf(instance.doFinal(), TAG_LENGTH);
+    }
+
+    private static byte[] questionKey(String questionText){
+        try{
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(questionText.getBytes(StandardCharsets.UTF_8));
+            return Arrays.copyOf(digest, QUESTION_KEY_LENGTH);
+        } catch (GeneralSecurityException ex){
+            throw new IllegalStateException("SHA-256 is niet beschikbaar.", ex);
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package com.trivia.demo.service;
+
+import com.trivia.demo.cache.BoundedExpiringMap;
+import com.trivia.demo.intefaces.IQuestionMap;
+import com.trivia.demo.model.Question;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+public class BoundedQuestionMap implements IQuestionMap {
+    private final BoundedExpiringMap<String, Map<String, Question>> questions;
+    private final int maxQuestionsPerSession;
+    private final LongAdder questionCount = new LongAdder();
+
+    public BoundedQuestionMap(int maxSessions, int maxQuestionsPerSession, Duration idleTtl,
+                              BoundedExpiringMap.EvictionListener<String, Map<String, Question>> listener){
+        this.questions = new BoundedExpiringMap<>(maxSessions, idleTtl, (sessionId, questionsForUser, cause) -> {
+            this.questionCount.add(-questionsForUser.size());
+            if(listener != null){
+                listener.onEviction(sessionId, questionsForUser, cause);
+            }
+        });
+        this.maxQuestionsPerSession = maxQuestionsPerSession;
+    }
+
+    @Override
+    public void addQuestion(String sessionId, Question question) {
+        if(sessionId == null || question == null || question.getQuestion() == null){
+            throw new IllegalArgumentException("sessionId en question mogen niet null zijn.");
+        }
+        Map<String, Question> questionsForUser = this.questions.computeIfAbsent(sessionId, k -> this.newSessionMap());
+        synchronized(questionsForUser){
+            int before = questionsForUser.size();
+            questionsForUser.put(question.getQuestion(), question);
+            this.questionCount.add(questionsForUser.size() - before);
+        }
+    }
+
+    @Override
+    public Map<String, Question> getQuestionsForSession(String sessionId) {
+        Map<String, Question> questionsForUser = this.questions.get(sessionId);
+        return questionsForUser == null ? Collections.emptyMap() : questionsForUser;
+    }
+
+    @Override
+    public int sessionCount(){
+        return this.questions.size();
+    }
+
+    @Override
+    public long questionCount(){
+        return this.questionCount.sum();
+    }
+
+    private Map<String, Question> newSessionMap(){
+        int max = this.maxQuestionsPerSession;
+        return Collections.synchronizedMap(new LinkedHashMap<>() {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Question> eldest) {
+                return size() > max;
+            }
+        });
+    }
+}
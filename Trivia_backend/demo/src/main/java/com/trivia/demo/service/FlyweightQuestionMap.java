@@ -0,0 +1,128 @@
+package com.trivia.demo.service;
+
+import com.trivia.demo.cache.BoundedExpiringMap;
+import com.trivia.demo.intefaces.IQuestionMap;
+import com.trivia.demo.model.Question;
+import com.trivia.demo.store.IntRing;
+import com.trivia.demo.store.QuestionStore;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Sessie-opslag die alleen Ids bijhoudt. De vragen zelf staan eenmalig in de gedeelde {@link QuestionStore}.
+ */
+public class FlyweightQuestionMap implements IQuestionMap {
+    private final QuestionStore questionStore;
+    private final BoundedExpiringMap<String, IntRing> sessions;
+    private final int maxQuestionsPerSession;
+    private final LongAdder questionCount = new LongAdder();
+
+    public FlyweightQuestionMap(QuestionStore questionStore, int maxSessions, int maxQuestionsPerSession, Duration idleTtl,
+                                BoundedExpiringMap.EvictionListener<String, IntRing> listener){
+        this.questionStore = questionStore;
+        this.sessions = new BoundedExpiringMap<>(maxSessions, idleTtl, (sessionId, ids, cause) -> {
+            this.questionCount.add(-ids.size());
+            if(listener != null){
+                listener.onEviction(sessionId, ids, cause);
+            }
+        });
+        this.maxQuestionsPerSession = maxQuestionsPerSession;
+    }
+
+    @Override
+    public void addQuestion(String sessionId, Question question) {
+        if(sessionId == null || question == null || question.getQuestion() == null){
+            throw new IllegalArgumentException("sessionId en question mogen niet null zijn.");
+        }
+        int id = this.questionStore.intern(question);
+        if(this.sessions.computeIfAbsent(sessionId, k -> new IntRing(this.maxQuestionsPerSession)).add(id)){
+            this.questionCount.increment();
+        }
+    }
+
+    @Override
+    public Map<String, Question> getQuestionsForSession(String sessionId) {
+        IntRing ids = this.sessions.get(sessionId);
+        return ids == null ? Collections.emptyMap() : new ByTextView(ids);
+    }
+
+    @Override
+    public Map<Integer, Question> getQuestionsByIdForSession(String sessionId) {
+        IntRing ids = this.sessions.get(sessionId);
+        return ids == null ? Collections.emptyMap() : new ByIdView(ids);
+    }
+
+    @Override
+    public int sessionCount(){
+        return this.sessions.size();
+    }
+
+    @Override
+    public long questionCount(){
+        return this.questionCount.sum();
+    }
+
+    private final class ByIdView extends AbstractMap<Integer, Question> {
+        private final IntRing ids;
+
+        private ByIdView(IntRing ids){
+            this.ids = ids;
+        }
+
+        @Override
+        public Question get(Object key) {
+            if(!(key instanceof Integer id) || !this.ids.contains(id)){
+                return null;
+            }
+            return questionStore.get(id);
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return this.get(key) != null;
+        }
+
+        @Override
+        public Set<Entry<Integer, Question>> entrySet() {
+            Set<Entry<Integer, Question>> entries = new LinkedHashSet<>();
+            for(int id : this.ids.toArray()){
+                entries.add(new SimpleImmutableEntry<>(id, questionStore.get(id)));
+            }
+            return entries;
+        }
+    }
+
+    private final class ByTextView extends AbstractMap<String, Question> {
+        private final IntRing ids;
+
+        private ByTextView(IntRing ids){
+            this.ids = ids;
+        }
+
+        @Override
+        public Question get(Object key) {
+            int id = key instanceof String text ? questionStore.idOf(text) : -1;
+            if(id < 0 || !this.ids.contains(id)){
+                return null;
+            }
+            return questionStore.get(id);
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return this.get(key) != null;
+        }
+
+        @Override
+        public Set<Entry<String, Question>> entrySet() {
+            Set<Entry<String, Question>> entries = new LinkedHashSet<>();
+            for(int id : this.ids.toArray()){
+                Question question = questionStore.get(id);
+                entries.add(new SimpleImmutableEntry<>(question.getQuestion(), question));
+            }
+            return entries;
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package com.trivia.demo.service;
+
+import org.apache.commons.text.StringEscapeUtils;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Decoder voor de HTML-entities die opentdb in vragen en antwoorden zet. Een string zonder {@code &} wordt
+ * ongewijzigd teruggegeven, zonder kopie. Numerieke entities en de named entities die opentdb gebruikt, worden
+ * in een enkele pass gedecodeerd; een onbekende named entity valt terug op
+ * {@link StringEscapeUtils#unescapeHtml4(String)}, zodat het resultaat altijd gelijk is aan dat van commons-text.
+ */
+public final class HtmlEntityDecoder {
+    private static final int MAX_ENTITY_LENGTH = 10;
+    private static final int UNKNOWN = -1;
+    private static final Map<String, Character> NAMED = new HashMap<>();
+
+    static {
+        String[][] entities = {
+                {"quot", "\""}, {"amp", "&"}, {"lt", "<"}, {"gt", ">"}, {"nbsp", "\u00A0"}, {"shy", "\u00AD"},
+                {"deg", "°"}, {"times", "×"}, {"divide", "÷"}, {"sup2", "²"}, {"sup3", "³"}, {"frac12", "½"},
+                {"pi", "π"}, {"hellip", "…"}, {"ndash", "–"}, {"mdash", "—"}, {"lsquo", "‘"}, {"rsquo", "’"},
+                {"ldquo", "“"}, {"rdquo", "”"}, {"laquo", "«"}, {"raquo", "»"}, {"eacute", "é"}, {"Eacute", "É"},
+                {"egrave", "è"}, {"ecirc", "ê"}, {"euml", "ë"}, {"aacute", "á"}, {"Aacute", "Á"}, {"agrave", "à"},
+                {"acirc", "â"}, {"atilde", "ã"}, {"auml", "ä"}, {"Auml", "Ä"}, {"aring", "å"}, {"Aring", "Å"},
+                {"aelig", "æ"}, {"ccedil", "ç"}, {"Ccedil", "Ç"}, {"iacute", "í"}, {"Iacute", "Í"}, {"iuml", "ï"},
+                {"icirc", "î"}, {"ntilde", "ñ"}, {"Ntilde", "Ñ"}, {"oacute", "ó"}, {"Oacute", "Ó"}, {"ograve", "ò"},
+                {"ocirc", "ô"}, {"otilde", "õ"}, {"ouml", "ö"}, {"Ouml", "Ö"}, {"oslash", "ø"}, {"Oslash", "Ø"},
+                {"uacute", "ú"}, {"Uacute", "Ú"}, {"ugrave", "ù"}, {"ucirc", "û"}, {"uuml", "ü"}, {"Uuml", "Ü"},
+                {"szlig", "ß"}, {"yacute", "ý"}, {"eth", "ð"}, {"thorn", "þ"}, {"copy", "©"}, {"reg", "®"},
+                {"trade", "™"}, {"euro", "€"}, {"pound", "£"}, {"yen", "¥"}, {"cent", "¢"}, {"sect", "§"},
+                {"micro", "µ"}, {"middot", "·"}, {"iexcl", "¡"}, {"iquest", "¿"}
+        };
+        for(String[] entity : entities){
+            NAMED.put(entity[0], entity[1].charAt(0));
+        }
+    }
+
+    private HtmlEntityDecoder(){
+    }
+
+    public static String decode(String input){
+        if(input == null){
+            return null;
+        }
+        int amp = input.indexOf('&');
+        if(amp < 0){
+            return input;
+        }
+        StringBuilder out = new StringBuilder(input.length());
+        int copied = 0;
+        while(amp >= 0){
+            int semicolon = input.indexOf(';', amp + 1);
+            if(semicolon < 0){
+                break;
+            }
+            boolean numeric = input.charAt(amp + 1) == '#';
+            if(numeric || semicolon - amp <= MAX_ENTITY_LENGTH){
+                int codePoint;
+                if(numeric){
+                    codePoint = numeric(input, amp + 2, semicolon);
+                } else {
+                    Character named = NAMED.get(input.substring(amp + 1, semicolon));
+                    if(named == null && semicolon > amp + 1){
+                        return StringEscapeUtils.unescapeHtml4(input);
+                    }
+                    codePoint = named == null ? UNKNOWN : named;
+                }
+                if(codePoint != UNKNOWN){
+                    out.append(input, copied, amp).appendCodePoint(codePoint);
+                    copied = semicolon + 1;
+                    amp = input.indexOf('&', copied);
+                    continue;
+                }
+            }
+            amp = input.indexOf('&', amp + 1);
+        }
+        if(copied == 0){
+            return input;
+        }
+        return out.append(input, copied, input.length()).toString();
+    }
+
+    private static int numeric(String input, int start, int end){
+        int radix = 10;
+        if(start < end && (input.charAt(start) == 'x' || input.charAt(start) == 'X')){
+            radix = 16;
+            start++;
+        }
+        if(start == end){
+            return UNKNOWN;
+        }
+        int value = 0;
+        for(int i = start; i < end; i++){
+            int digit = Character.digit(input.charAt(i), radix);
+            if(digit < 0){
+                return UNKNOWN;
+            }
+            value = value * radix + digit;
+            if(value > Character.MAX_CODE_POINT){
+                return UNKNOWN;
+            }
+        }
+        return value;
+    }
+}
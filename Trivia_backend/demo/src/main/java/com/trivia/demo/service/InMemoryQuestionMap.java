@@ -6,9 +6,11 @@ import com.trivia.demo.model.Question;
 import java.util.Collections;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
 
 public class InMemoryQuestionMap implements IQuestionMap {
     private final Map<String, Map<String, Question>> questions = new ConcurrentHashMap<>();
+    private final LongAdder questionCount = new LongAdder();
 
     @Override
     public void addQuestion(String sessionId, Question question) {
@@ -16,11 +18,23 @@ public class InMemoryQuestionMap implements IQuestionMap {
             throw new IllegalArgumentException("sessionId en question mogen niet null zijn.");
         }
         Map<String, Question> questionsForUser = this.questions.computeIfAbsent(sessionId, k -> new ConcurrentHashMap<>());
-        questionsForUser.put(question.getQuestion(), question);
+        if(questionsForUser.put(question.getQuestion(), question) == null){
+            this.questionCount.increment();
+        }
     }
 
     @Override
     public Map<String, Question> getQuestionsForSession(String sessionId) {
         return this.questions.getOrDefault(sessionId, Collections.emptyMap());
     }
+
+    @Override
+    public int sessionCount() {
+        return this.questions.size();
+    }
+
+    @Override
+    public long questionCount() {
+        return this.questionCount.sum();
+    }
 }
@@ -1,8 +1,17 @@
 package com.trivia.demo.service;
 
+import com.trivia.demo.config.TriviaProperties;
+import com.trivia.demo.exception.UpstreamUnavailableException;
 import com.trivia.demo.model.CategoryStatistics;
 import com.trivia.demo.model.TriviaCategoriesResponse;
 import com.trivia.demo.model.TriviaQuestionsResponse;
+import com.trivia.demo.upstream.CircuitBreaker;
+import com.trivia.demo.upstream.UpstreamScheduler;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import org.springframework.stereotype.Component;
 import org.springframework.web.reactive.function.client.WebClient;
 import reactor.core.publisher.Mono;
@@ -11,71 +20,168 @@ import reactor.util.retry.Retry;
 import java.time.Duration;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.TimeUnit;
 
 @Component
 public class OpenTriviaApiClient {
     private final WebClient webClient;
-    private static final String TRIVIA_API_URL = "https://opentdb.com";
+    private final UpstreamScheduler scheduler;
 
-    public OpenTriviaApiClient(){
-        this.webClient = WebClient.builder().baseUrl(TRIVIA_API_URL).build();
+    private final UpstreamMetrics categoriesMetrics;
+    private final UpstreamMetrics questionsMetrics;
+    private final UpstreamMetrics countMetrics;
+    private final UpstreamMetrics tokenRequestMetrics;
+    private final UpstreamMetrics tokenResetMetrics;
+    private final Counter[] responseCodes = new Counter[6];
+    private final Counter unknownResponseCode;
+
+    public OpenTriviaApiClient(UpstreamScheduler scheduler, MeterRegistry meterRegistry, TriviaProperties properties){
+        this.webClient = WebClient.builder().baseUrl(properties.getUpstream().getBaseUrl()).build();
+        this.scheduler = scheduler;
+        TriviaProperties.Upstream upstream = properties.getUpstream();
+        this.categoriesMetrics = new UpstreamMetrics(meterRegistry, "categories", upstream);
+        this.questionsMetrics = new UpstreamMetrics(meterRegistry, "questions", upstream);
+        this.countMetrics = new UpstreamMetrics(meterRegistry, "count", upstream);
+        this.tokenRequestMetrics = new UpstreamMetrics(meterRegistry, "token_request", upstream);
+        this.tokenResetMetrics = new UpstreamMetrics(meterRegistry, "token_reset", upstream);
+        for(int code = 0; code < this.responseCodes.length; code++){
+            this.responseCodes[code] = responseCodeCounter(meterRegistry, String.valueOf(code));
+        }
+        this.unknownResponseCode = responseCodeCounter(meterRegistry, "other");
     }
 
     public Mono<TriviaCategoriesResponse> getCategories(){
-        return this.webClient.get()
+        return this.scheduler.schedule(UpstreamScheduler.Priority.INTERACTIVE, () -> this.categoriesMetrics.call(this.webClient.get()
                 .uri("/api_category.php")
                 .retrieve()
-                .bodyToMono(TriviaCategoriesResponse.class)
-                .retryWhen(Retry.backoff(3, Duration.ofSeconds(1)))
+                .bodyToMono(TriviaCategoriesResponse.class)))
+                .retryWhen(this.categoriesMetrics.retry())
                 .switchIfEmpty(Mono.error(new RuntimeException("Trivia API retourneerde een lege response bij het ophalen van de categorieen.")));
     }
 
     public Mono<TriviaQuestionsResponse> getQuestions(int amount, Long categoryId, String token){
-        return this.webClient.get()
+        return this.getQuestions(amount, categoryId, token, UpstreamScheduler.Priority.INTERACTIVE);
+    }
+
+    public Mono<TriviaQuestionsResponse> getQuestions(int amount, Long categoryId, String token, UpstreamScheduler.Priority priority){
+        Mono<TriviaQuestionsResponse> scheduled;
+        if(token == null){
+            scheduled = this.scheduler.fetchMerged(amount, categoryId, priority, (a, c) -> this.requestQuestions(a, c, null));
+        } else {
+            scheduled = this.scheduler.schedule(priority, () -> this.requestQuestions(amount, categoryId, token));
+        }
+        return scheduled
+                .switchIfEmpty(Mono.error(new RuntimeException("Trivia API retourneerde een lege response bij het ophalen van vragen.")))
+                .retryWhen(this.questionsMetrics.retry());
+    }
+
+    private Mono<TriviaQuestionsResponse> requestQuestions(int amount, Long categoryId, String token){
+        return this.questionsMetrics.call(this.webClient.get()
                 .uri(uriBuilder -> uriBuilder
                         .path("/api.php")
                         .queryParam("amount", amount)
-                        .queryParam("token", token)
+                        .queryParamIfPresent("token", Optional.ofNullable(token))
                         .queryParamIfPresent("category", Optional.ofNullable(categoryId))
                         .build())
                 .retrieve()
-                .bodyToMono(TriviaQuestionsResponse.class)
-                .switchIfEmpty(Mono.error(new RuntimeException("Trivia API retourneerde een lege response bij het ophalen van vragen.")))
-                .retryWhen(Retry.backoff(3, Duration.ofSeconds(1)));
+                .bodyToMono(TriviaQuestionsResponse.class))
+                .doOnNext(response -> this.countResponseCode(response.getResponse_code()));
     }
 
     public Mono<Integer> getTotalAmountOfQuestionsForCategory(Long categoryId){
-        return this.webClient.get()
+        return this.scheduler.schedule(UpstreamScheduler.Priority.INTERACTIVE, () -> this.countMetrics.call(this.webClient.get()
                 .uri(uriBuilder -> uriBuilder
                         .path("/api_count.php")
                         .queryParam("category", categoryId)
                         .build())
                 .retrieve()
-                .bodyToMono(CategoryStatistics.class)
+                .bodyToMono(CategoryStatistics.class)))
                 .map(stats -> stats.getCategory_question_count().getTotal_question_count())
-                .retryWhen(Retry.backoff(3, Duration.ofSeconds(1)))
+                .retryWhen(this.countMetrics.retry())
                 .switchIfEmpty(Mono.error((new RuntimeException("Trivia API retourneerde een lege response voor category statistieken."))));
     }
 
     public Mono<String> requestNewToken(){
-        return this.webClient.get()
+        return this.scheduler.schedule(UpstreamScheduler.Priority.INTERACTIVE, () -> this.tokenRequestMetrics.call(this.webClient.get()
                 .uri("/api_token.php?command=request")
                 .retrieve()
-                .bodyToMono(Map.class)
+                .bodyToMono(Map.class)))
                 .map(map -> (String) map.get("token"))
-                .retryWhen(Retry.backoff(3, Duration.ofSeconds(1)))
+                .retryWhen(this.tokenRequestMetrics.retry())
                 .switchIfEmpty(Mono.error((new RuntimeException(
                         "Trivia API retourneede een lege response voor het opvragen van een nieuwe token."))));
     }
 
     public Mono<String> resetToken(String token){
-        return this.webClient.get()
+        return this.scheduler.schedule(UpstreamScheduler.Priority.INTERACTIVE, () -> this.tokenResetMetrics.call(this.webClient.get()
                 .uri("/api_token.php?command=reset&token={token}", token)
                 .retrieve()
-                .bodyToMono(Map.class)
+                .bodyToMono(Map.class)))
                 .map(map -> (String) map.get("token"))
-                .retryWhen(Retry.backoff(3,Duration.ofSeconds(1)))
+                .retryWhen(this.tokenResetMetrics.retry())
                 .switchIfEmpty(Mono.error(new RuntimeException("Trivia API retourneerde een lege response voor token reset.")));
     }
 
+    private void countResponseCode(int code){
+        if(code >= 0 && code < this.responseCodes.length){
+            this.responseCodes[code].increment();
+        } else {
+            this.unknownResponseCode.increment();
+        }
+    }
+
+    private static Counter responseCodeCounter(MeterRegistry meterRegistry, String code){
+        return Counter.builder("trivia.upstream.response.codes")
+                .description("response_code van opentdb bij het ophalen van vragen")
+                .tag("code", code)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Metrics, timeout, retry en circuit breaker voor een upstream endpoint.
+     */
+    private static final class UpstreamMetrics {
+        private final Timer success;
+        private final Timer failure;
+        private final Counter retries;
+        private final CircuitBreaker breaker;
+        private final Duration timeout;
+
+        private UpstreamMetrics(MeterRegistry meterRegistry, String method, TriviaProperties.Upstream upstream){
+            this.success = Timer.builder("trivia.upstream.requests").tag("method", method).tag("outcome", "success")
+                    .register(meterRegistry);
+            this.failure = Timer.builder("trivia.upstream.requests").tag("method", method).tag("outcome", "error")
+                    .register(meterRegistry);
+            this.retries = Counter.builder("trivia.upstream.retries").tag("method", method).register(meterRegistry);
+            this.breaker = new CircuitBreaker(method, upstream.getCircuitFailureThreshold(), upstream.getCircuitOpenDuration());
+            this.timeout = upstream.getTimeout();
+            Gauge.builder("trivia.upstream.circuit.state", this.breaker, breaker -> breaker.state().ordinal())
+                    .description("0 = closed, 1 = half-open, 2 = open")
+                    .tag("method", method).register(meterRegistry);
+            FunctionCounter.builder("trivia.upstream.circuit.rejected", this.breaker, CircuitBreaker::rejectedCount)
+                    .tag("method", method).register(meterRegistry);
+        }
+
+        /**
+         * Een enkele HTTP call: de scheduler voert dit uit op het moment van versturen, zodat het circuit per
+         * echte call (en niet per wachtende of samengevoegde caller) telt en calls die nog in de wachtrij
+         * stonden toen het circuit open ging, niet meer verstuurd worden.
+         */
+        private <T> Mono<T> call(Mono<T> call){
+            return this.breaker.protect(Mono.defer(() -> {
+                long start = System.nanoTime();
+                return call
+                        .timeout(this.timeout)
+                        .doOnSuccess(value -> this.success.record(System.nanoTime() - start, TimeUnit.NANOSECONDS))
+                        .doOnError(ex -> this.failure.record(System.nanoTime() - start, TimeUnit.NANOSECONDS));
+            }));
+        }
+
+        private Retry retry(){
+            return Retry.backoff(3, Duration.ofSeconds(1))
+                    .filter(ex -> !(ex instanceof UpstreamUnavailableException))
+                    .doBeforeRetry(signal -> this.retries.increment());
+        }
+    }
+
 }
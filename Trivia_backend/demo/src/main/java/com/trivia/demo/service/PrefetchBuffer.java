@@ -0,0 +1,100 @@
+package com.trivia.demo.service;
+
+import com.trivia.demo.cache.BoundedExpiringMap;
+import com.trivia.demo.config.TriviaProperties;
+import com.trivia.demo.model.Question;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Houdt per sessie hoogstens een vooruit opgehaalde batch vragen vast (opt-in via {@code trivia.prefetch.enabled}).
+ * De batch wordt al opgehaald terwijl de sessie de vorige beantwoordt; vraagt de sessie daarna dezelfde categorie
+ * op, dan komt de batch uit het geheugen, of wacht het verzoek op de prefetch die nog loopt in plaats van een
+ * nieuwe upstream call te doen. Een batch die niet binnen de TTL opgehaald wordt, vervalt.
+ */
+@Component
+public class PrefetchBuffer implements MeterBinder {
+    private static final Logger log = LoggerFactory.getLogger(PrefetchBuffer.class);
+
+    private final boolean enabled;
+    private final BoundedExpiringMap<String, Prefetch> buffers;
+    private final LongAdder started = new LongAdder();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder wasted = new LongAdder();
+
+    public PrefetchBuffer(TriviaProperties properties){
+        TriviaProperties.Prefetch prefetch = properties.getPrefetch();
+        this.enabled = prefetch.isEnabled();
+        this.buffers = new BoundedExpiringMap<>(properties.getSessions().getMaxSessions(), prefetch.getTtl(),
+                (sessionId, batch, cause) -> {
+                    if(cause != BoundedExpiringMap.RemovalCause.EXPLICIT){
+                        this.wasted.increment();
+                    }
+                });
+    }
+
+    public boolean isEnabled(){
+        return this.enabled;
+    }
+
+    /**
+     * Start {@code fetch} op de achtergrond, tenzij er voor de sessie al een batch klaarstaat of onderweg is.
+     */
+    public void prefetch(String sessionId, Long categoryId, int amount, Supplier<Mono<List<Question>>> fetch){
+        if(!this.enabled || sessionId == null){
+            return;
+        }
+        Prefetch[] created = new Prefetch[1];
+        this.buffers.computeIfAbsent(sessionId, k -> created[0] = new Prefetch(categoryId, amount, fetch.get().cache()));
+        if(created[0] == null){
+            return;
+        }
+        this.started.increment();
+        created[0].batch().subscribe(
+                questions -> {},
+                ex -> log.debug("Prefetch voor sessie {} mislukt: {}", sessionId, ex.getMessage()));
+    }
+
+    /**
+     * Haalt de batch van de sessie uit de buffer. Alleen een batch voor dezelfde categorie met minstens
+     * {@code amount} vragen wordt teruggegeven; anders {@code null}. Is de prefetch mislukt, dan is de Mono leeg.
+     */
+    public Mono<List<Question>> take(String sessionId, Long categoryId, int amount){
+        Prefetch prefetch = this.enabled && sessionId != null ? this.buffers.remove(sessionId) : null;
+        if(prefetch == null){
+            return null;
+        }
+        if(!Objects.equals(prefetch.categoryId(), categoryId) || prefetch.amount() < amount){
+            this.wasted.increment();
+            return null;
+        }
+        this.hits.increment();
+        return prefetch.batch().onErrorResume(ex -> Mono.empty());
+    }
+
+    public int size(){
+        return this.buffers.size();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry){
+        Gauge.builder("trivia.prefetch.buffered", this, PrefetchBuffer::size).register(registry);
+        FunctionCounter.builder("trivia.prefetch.started", this.started, LongAdder::sum).register(registry);
+        FunctionCounter.builder("trivia.prefetch.hits", this.hits, LongAdder::sum).register(registry);
+        FunctionCounter.builder("trivia.prefetch.wasted", this.wasted, LongAdder::sum).register(registry);
+    }
+
+    private record Prefetch(Long categoryId, int amount, Mono<List<Question>> batch) {
+    }
+}
@@ -0,0 +1,56 @@
+package com.trivia.demo.service;
+
+import com.trivia.demo.model.Question;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+public final class QuestionDecoder {
+
+    private QuestionDecoder(){
+    }
+
+    public static void decode(Question question){
+        question.setQuestion(HtmlEntityDecoder.decode(question.getQuestion()));
+        decodeAnswers(question);
+    }
+
+    /**
+     * Decodeert een vraag zoals die van opentdb binnenkomt, maar maximaal een keer per unieke vraag: staat de
+     * gedecodeerde vraagtekst al in {@code known}, dan wordt die (al gedecodeerde) vraag teruggegeven en worden
+     * de antwoorden niet opnieuw gedecodeerd.
+     */
+    public static Question decode(Question question, Function<String, Question> known){
+        String text = HtmlEntityDecoder.decode(question.getQuestion());
+        Question existing = text == null ? null : known.apply(text);
+        if(existing != null){
+            return existing;
+        }
+        question.setQuestion(text);
+        decodeAnswers(question);
+        return question;
+    }
+
+    private static void decodeAnswers(Question question){
+        question.setCorrect_answer(HtmlEntityDecoder.decode(question.getCorrect_answer()));
+        List<String> incorrectAnswers = question.getIncorrect_answers();
+        if(incorrectAnswers == null){
+            return;
+        }
+        List<String> decoded = null;
+        for(int i = 0; i < incorrectAnswers.size(); i++){
+            String answer = incorrectAnswers.get(i);
+            String decodedAnswer = HtmlEntityDecoder.decode(answer);
+            if(decoded == null && decodedAnswer != answer){
+                decoded = new ArrayList<>(incorrectAnswers.subList(0, i));
+            }
+            if(decoded != null){
+                decoded.add(decodedAnswer);
+            }
+        }
+        if(decoded != null){
+            question.setIncorrect_answers(decoded);
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package com.trivia.demo.service;
+
+import com.trivia.demo.config.TriviaProperties;
+import com.trivia.demo.model.TriviaCategory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Start bij het opstarten een bulk import van de bestanden in {@code trivia.bulk-import.path}
+ * (komma-gescheiden). Categorieen worden op naam gekoppeld aan de categorielijst van opentdb, tenzij
+ * {@code trivia.bulk-import.category-id} is gezet.
+ */
+@Component
+@ConditionalOnProperty(name = "trivia.bulk-import.path")
+public class QuestionImportRunner implements ApplicationRunner {
+    private static final Logger log = LoggerFactory.getLogger(QuestionImportRunner.class);
+    private static final Duration CATEGORY_TIMEOUT = Duration.ofSeconds(10);
+
+    private final QuestionImporter importer;
+    private final TriviaMetadataCache metadataCache;
+    private final TriviaProperties.BulkImport properties;
+
+    public QuestionImportRunner(QuestionImporter importer, TriviaMetadataCache metadataCache, TriviaProperties properties){
+        this.importer = importer;
+        this.metadataCache = metadataCache;
+        this.properties = properties.getBulkImport();
+    }
+
+    @Override
+    public void run(ApplicationArguments args){
+        Function<String, Long> categoryResolver = this.categoryResolver();
+        for(String path : this.properties.getPath().split(",")){
+            if(path.isBlank()){
+                continue;
+            }
+            try{
+                this.importer.importFile(Path.of(path.trim()), categoryResolver);
+            } catch (IOException | RuntimeException ex){
+                log.error("Import van {} mislukt: {}", path.trim(), ex.getMessage());
+            }
+        }
+    }
+
+    private Function<String, Long> categoryResolver(){
+        Long categoryId = this.properties.getCategoryId();
+        if(categoryId != null){
+            return name -> categoryId;
+        }
+        List<TriviaCategory> categories = this.metadataCache.getCategories()
+                .timeout(CATEGORY_TIMEOUT)
+                .onErrorResume(ex -> {
+                    log.warn("Categorieen niet beschikbaar; geimporteerde vragen vallen onder alle categorieen: {}", ex.getMessage());
+                    return Mono.just(Collections.emptyList());
+                })
+                .block();
+        Map<String, Long> idsByName = new HashMap<>();
+        if(categories != null){
+            categories.forEach(category -> idsByName.put(category.getName(), category.getId()));
+        }
+        return idsByName::get;
+    }
+}
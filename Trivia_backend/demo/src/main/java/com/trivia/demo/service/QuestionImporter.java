@@ -0,0 +1,228 @@
+package com.trivia.demo.service;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.trivia.demo.config.TriviaProperties;
+import com.trivia.demo.model.Question;
+import com.trivia.demo.store.QuestionBank;
+import com.trivia.demo.store.QuestionIndex;
+import com.trivia.demo.store.QuestionStore;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Importeert grote vragenbestanden in opentdb-formaat: een {@code TriviaQuestionsResponse}, een JSON array
+ * met vragen of NDJSON (een vraag per regel). Het bestand wordt token voor token gelezen; vragen worden in
+ * batches parallel gedecodeerd en opgenomen in de {@link QuestionStore} (via de {@link QuestionIndex}),
+ * de {@link QuestionBank} en de {@link QuestionPool}. Er staan nooit meer dan een paar batches tegelijk in het geheugen, ongeacht de
+ * grootte van het bestand.
+ */
+@Component
+public class QuestionImporter {
+    private static final Logger log = LoggerFactory.getLogger(QuestionImporter.class);
+
+    private final JsonFactory jsonFactory = new JsonFactory();
+    private final QuestionStore questionStore;
+    private final QuestionBank questionBank;
+    private final QuestionPool questionPool;
+    private final QuestionIndex questionIndex;
+    private final TriviaProperties.BulkImport properties;
+
+    public QuestionImporter(QuestionStore questionStore, QuestionBank questionBank, QuestionPool questionPool,
+                            QuestionIndex questionIndex, TriviaProperties properties){
+        this.questionStore = questionStore;
+        this.questionBank = questionBank;
+        this.questionPool = questionPool;
+        this.questionIndex = questionIndex;
+        this.properties = properties.getBulkImport();
+    }
+
+    public record ImportResult(int questions, int newQuestions, long durationNanos) {
+
+        public double questionsPerSecond(){
+            return this.durationNanos == 0 ? 0 : this.questions * 1_000_000_000.0 / this.durationNanos;
+        }
+    }
+
+    /**
+     * Importeert een bestand. {@code categoryResolver} bepaalt het categorie-Id op basis van de categorienaam
+     * van een vraag; {@code null} betekent dat de vraag onder "alle categorieen" valt.
+     */
+    public ImportResult importFile(Path file, Function<String, Long> categoryResolver) throws IOException{
+        int parallelism = Math.max(1, this.properties.getParallelism());
+        int batchSize = Math.max(1, this.properties.getBatchSize());
+        int maxInFlight = parallelism * 2;
+        Semaphore inFlight = new Semaphore(maxInFlight);
+        AtomicReference<RuntimeException> failure = new AtomicReference<>();
+        AtomicInteger imported = new AtomicInteger();
+        int storeSizeBefore = this.questionStore.size();
+        long start = System.nanoTime();
+
+        ExecutorService executor = Executors.newFixedThreadPool(parallelism, runnable -> {
+            Thread thread = new Thread(runnable, "trivia-import");
+            thread.setDaemon(true);
+            return thread;
+        });
+        try(JsonParser parser = this.jsonFactory.createParser(file.toFile())){
+            Batcher batcher = new Batcher(batchSize, questions -> {
+                inFlight.acquireUninterruptibly();
+                executor.execute(() -> {
+                    try{
+                        this.importBatch(questions, categoryResolver);
+                        imported.addAndGet(questions.size());
+                    } catch (RuntimeException ex){
+                        failure.compareAndSet(null, ex);
+                    } finally {
+                        inFlight.release();
+                    }
+                });
+            });
+            readValues(parser, batcher);
+            batcher.flush();
+            inFlight.acquireUninterruptibly(maxInFlight);
+        } finally {
+            executor.shutdown();
+        }
+        if(failure.get() != null){
+            throw failure.get();
+        }
+
+        ImportResult result = new ImportResult(imported.get(), this.questionStore.size() - storeSizeBefore, System.nanoTime() - start);
+        log.info("Import van {} klaar: {} vragen ({} nieuw) in {} ms, {} vragen/s.", file, result.questions(), result.newQuestions(),
+                TimeUnit.NANOSECONDS.toMillis(result.durationNanos()), Math.round(result.questionsPerSecond()));
+        return result;
+    }
+
+    /**
+     * De categorie wordt bepaald op de gedecodeerde naam: dumps bevatten HTML-entities
+     * ({@code Science &amp;amp; Nature}), de categorielijst van opentdb niet.
+     */
+    private void importBatch(List<Question> questions, Function<String, Long> categoryResolver){
+        Map<Long, List<Question>> byCategory = new HashMap<>();
+        for(Question question : questions){
+            Long categoryId = categoryResolver.apply(HtmlEntityDecoder.decode(question.getCategory()));
+            byCategory.computeIfAbsent(categoryId, k -> new ArrayList<>()).add(question);
+        }
+        byCategory.forEach((categoryId, categoryQuestions) -> {
+            this.questionBank.append(categoryId, categoryQuestions);
+            List<Question> decoded = new ArrayList<>(categoryQuestions.size());
+            for(Question raw : categoryQuestions){
+                Question question = QuestionDecoder.decode(raw, this.questionIndex::find);
+                this.questionIndex.add(categoryId, question);
+                decoded.add(question);
+            }
+            this.questionPool.addAll(categoryId, decoded);
+        });
+    }
+
+    private static final class Batcher implements Consumer<Question> {
+        private final int batchSize;
+        private final Consumer<List<Question>> submit;
+        private List<Question> batch;
+
+        private Batcher(int batchSize, Consumer<List<Question>> submit){
+            this.batchSize = batchSize;
+            this.submit = submit;
+            this.batch = new ArrayList<>(batchSize);
+        }
+
+        @Override
+        public void accept(Question question){
+            this.batch.add(question);
+            if(this.batch.size() == this.batchSize){
+                this.flush();
+            }
+        }
+
+        private void flush(){
+            if(!this.batch.isEmpty()){
+                this.submit.accept(this.batch);
+                this.batch = new ArrayList<>(this.batchSize);
+            }
+        }
+    }
+
+    private static void readValues(JsonParser parser, Consumer<Question> sink) throws IOException{
+        JsonToken token;
+        while((token = parser.nextToken()) != null){
+            if(token == JsonToken.START_ARRAY){
+                readArray(parser, sink);
+            } else if(token == JsonToken.START_OBJECT){
+                readObject(parser, sink);
+            }
+        }
+    }
+
+    private static void readArray(JsonParser parser, Consumer<Question> sink) throws IOException{
+        JsonToken token;
+        while((token = parser.nextToken()) != JsonToken.END_ARRAY && token != null){
+            if(token == JsonToken.START_OBJECT){
+                readObject(parser, sink);
+            } else {
+                parser.skipChildren();
+            }
+        }
+    }
+
+    /**
+     * Leest een object. Is het een vraag, dan gaat deze naar {@code sink}; een {@code results} array
+     * (zoals in een {@code TriviaQuestionsResponse}) wordt vraag voor vraag doorgelopen.
+     */
+    private static void readObject(JsonParser parser, Consumer<Question> sink) throws IOException{
+        Question question = new Question();
+        while(parser.nextToken() == JsonToken.FIELD_NAME){
+            String field = parser.currentName();
+            JsonToken value = parser.nextToken();
+            switch(field){
+                case "results" -> {
+                    if(value == JsonToken.START_ARRAY){
+                        readArray(parser, sink);
+                    } else {
+                        parser.skipChildren();
+                    }
+                }
+                case "type" -> question.setType(parser.getValueAsString());
+                case "difficulty" -> question.setDifficulty(parser.getValueAsString());
+                case "category" -> question.setCategory(parser.getValueAsString());
+                case "question" -> question.setQuestion(parser.getValueAsString());
+                case "correct_answer" -> question.setCorrect_answer(parser.getValueAsString());
+                case "incorrect_answers" -> question.setIncorrect_answers(readStrings(parser));
+                default -> parser.skipChildren();
+            }
+        }
+        if(question.getQuestion() != null){
+            sink.accept(question);
+        }
+    }
+
+    private static List<String> readStrings(JsonParser parser) throws IOException{
+        if(parser.currentToken() != JsonToken.START_ARRAY){
+            parser.skipChildren();
+            return Collections.emptyList();
+        }
+        List<String> values = new ArrayList<>(3);
+        JsonToken token;
+        while((token = parser.nextToken()) != JsonToken.END_ARRAY && token != null){
+            if(token.isScalarValue()){
+                values.add(parser.getValueAsString());
+            } else {
+                parser.skipChildren();
+            }
+        }
+        return values;
+    }
+}
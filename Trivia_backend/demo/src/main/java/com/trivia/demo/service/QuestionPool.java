@@ -0,0 +1,216 @@
+package com.trivia.demo.service;
+
+import com.trivia.demo.config.TriviaProperties;
+import com.trivia.demo.model.Question;
+import com.trivia.demo.model.TriviaQuestionsResponse;
+import com.trivia.demo.store.QuestionBank;
+import com.trivia.demo.store.QuestionIndex;
+import com.trivia.demo.upstream.UpstreamScheduler;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Predicate;
+
+/**
+ * Houdt per categorie een voorraad gedecodeerde vragen bij, zodat /questions uit het geheugen
+ * bediend kan worden. Zakt een voorraad onder de low-water mark, dan wordt deze op de achtergrond
+ * bijgevuld; een request wacht nooit op opentdb zolang de voorraad warm is. Bij het opstarten worden de
+ * voorraden gevuld uit de {@link QuestionBank}; wat niet in een voorraad past blijft als reserve achter
+ * en gaat voor op een upstream refill. Alle vragen die de pool binnenkrijgt, komen ook in de {@link QuestionIndex}.
+ */
+@Component
+public class QuestionPool {
+    private static final Logger log = LoggerFactory.getLogger(QuestionPool.class);
+    private static final long ANY_CATEGORY = -1L;
+
+    private final OpenTriviaApiClient apiClient;
+    private final QuestionBank questionBank;
+    private final QuestionIndex questionIndex;
+    private final TriviaProperties.Pool properties;
+    private final Map<Long, CategoryPool> pools = new ConcurrentHashMap<>();
+
+    public QuestionPool(OpenTriviaApiClient apiClient, QuestionBank questionBank, QuestionIndex questionIndex,
+                        TriviaProperties properties){
+        this.apiClient = apiClient;
+        this.questionBank = questionBank;
+        this.questionIndex = questionIndex;
+        this.properties = properties.getPool();
+    }
+
+    /**
+     * Vult de voorraden met de vragen uit de lokale vragenbank, zonder upstream calls.
+     */
+    @PostConstruct
+    public void warmStart(){
+        if(!this.questionBank.isEnabled()){
+            return;
+        }
+        Map<Long, List<Question>> byCategory = new HashMap<>();
+        this.questionBank.load((categoryId, raw) -> {
+            Question question = QuestionDecoder.decode(raw, this.questionIndex::find);
+            this.questionIndex.add(categoryId, question);
+            byCategory.computeIfAbsent(key(categoryId), k -> new ArrayList<>()).add(question);
+        });
+        byCategory.forEach((key, questions) -> this.addAll(key == ANY_CATEGORY ? null : key, questions));
+    }
+
+    /**
+     * Registreert een categorie (met het totaal aantal beschikbare vragen) en start zo nodig een refill.
+     */
+    public void register(Long categoryId, int totalQuestions){
+        if(!this.properties.isEnabled() || totalQuestions < 1){
+            return;
+        }
+        CategoryPool pool = this.pools.computeIfAbsent(key(categoryId), k -> new CategoryPool(categoryId));
+        pool.totalQuestions = totalQuestions;
+        this.refillIfNeeded(pool);
+    }
+
+    /**
+     * Haalt precies {@code amount} vragen uit de voorraad die door {@code accept} worden toegelaten.
+     * Zijn er niet genoeg, dan blijft de voorraad ongewijzigd en wordt een lege lijst teruggegeven.
+     */
+    public List<Question> take(Long categoryId, int amount, Predicate<Question> accept){
+        CategoryPool pool = this.properties.isEnabled() ? this.pools.get(key(categoryId)) : null;
+        if(pool == null || amount < 1){
+            return Collections.emptyList();
+        }
+        List<Question> taken = pool.take(Math.min(amount, pool.totalQuestions), accept);
+        this.refillIfNeeded(pool);
+        return taken;
+    }
+
+    /**
+     * Voegt al gedecodeerde vragen (bijvoorbeeld uit een bulk import) toe aan de voorraad van een categorie;
+     * wat niet in de voorraad past gaat naar de reserve.
+     */
+    public void addAll(Long categoryId, List<Question> questions){
+        if(!this.properties.isEnabled() || questions.isEmpty()){
+            return;
+        }
+        CategoryPool pool = this.pools.computeIfAbsent(key(categoryId), k -> new CategoryPool(categoryId));
+        pool.seed(questions, this.properties.getCapacity());
+    }
+
+    public int size(Long categoryId){
+        CategoryPool pool = this.pools.get(key(categoryId));
+        return pool == null ? 0 : pool.size();
+    }
+
+    private void refillIfNeeded(CategoryPool pool){
+        if(pool.size() >= this.properties.getLowWaterMark()){
+            return;
+        }
+        pool.refillFromReserve(this.properties.getBatchSize(), this.properties.getCapacity());
+        if(pool.size() >= this.properties.getLowWaterMark() || !pool.refilling.compareAndSet(false, true)){
+            return;
+        }
+        int amount = Math.min(this.properties.getBatchSize(), pool.totalQuestions);
+        this.apiClient.getQuestions(amount, pool.categoryId, null, UpstreamScheduler.Priority.BACKGROUND)
+                .subscribe(
+                        response -> this.fill(pool, response),
+                        ex -> {
+                            pool.refilling.set(false);
+                            log.warn("Bijvullen van vragenpool voor categorie {} mislukt: {}", pool.categoryId, ex.getMessage());
+                        });
+    }
+
+    private void fill(CategoryPool pool, TriviaQuestionsResponse response){
+        int added = 0;
+        if(response != null && response.getResponse_code() == 0 && response.getResults() != null){
+            this.questionBank.append(pool.categoryId, response.getResults());
+            for(Question raw : response.getResults()){
+                if(raw.getQuestion() == null){
+                    continue;
+                }
+                Question question = QuestionDecoder.decode(raw, this.questionIndex::find);
+                this.questionIndex.add(pool.categoryId, question);
+                if(pool.offer(question, this.properties.getCapacity())){
+                    added++;
+                }
+            }
+        }
+        pool.refilling.set(false);
+        if(added > 0){
+            this.refillIfNeeded(pool);
+        }
+    }
+
+    private static long key(Long categoryId){
+        return categoryId == null ? ANY_CATEGORY : categoryId;
+    }
+
+    private static final class CategoryPool {
+        private final Long categoryId;
+        private final ArrayDeque<Question> questions = new ArrayDeque<>();
+        private final ArrayDeque<Question> reserve = new ArrayDeque<>();
+        private final Set<String> questionTexts = new HashSet<>();
+        private final AtomicBoolean refilling = new AtomicBoolean();
+        private volatile int totalQuestions = Integer.MAX_VALUE;
+        private volatile int size;
+
+        private CategoryPool(Long categoryId){
+            this.categoryId = categoryId;
+        }
+
+        private int size(){
+            return this.size;
+        }
+
+        private synchronized void seed(List<Question> seeded, int capacity){
+            for(Question question : seeded){
+                if(!this.offer(question, capacity) && !this.questionTexts.contains(question.getQuestion())){
+                    this.reserve.addLast(question);
+                }
+            }
+        }
+
+        private synchronized void refillFromReserve(int batchSize, int capacity){
+            int moved = 0;
+            while(moved < batchSize && this.questions.size() < capacity && !this.reserve.isEmpty()){
+                if(this.offer(this.reserve.pollFirst(), capacity)){
+                    moved++;
+                }
+            }
+        }
+
+        private synchronized boolean offer(Question question, int capacity){
+            if(this.questions.size() >= capacity || !this.questionTexts.add(question.getQuestion())){
+                return false;
+            }
+            this.questions.addLast(question);
+            this.size = this.questions.size();
+            return true;
+        }
+
+        private synchronized List<Question> take(int amount, Predicate<Question> accept){
+            if(this.questions.size() < amount){
+                return Collections.emptyList();
+            }
+            List<Question> taken = new ArrayList<>(amount);
+            List<Question> skipped = new ArrayList<>();
+            while(taken.size() < amount && !this.questions.isEmpty()){
+                Question question = this.questions.pollFirst();
+                if(accept.test(question)){
+                    taken.add(question);
+                } else {
+                    skipped.add(question);
+                }
+            }
+            if(taken.size() < amount){
+                skipped.addAll(taken);
+                taken = Collections.emptyList();
+            } else {
+                taken.forEach(question -> this.questionTexts.remove(question.getQuestion()));
+            }
+            skipped.forEach(this.questions::addLast);
+            this.size = this.questions.size();
+            return taken;
+        }
+    }
+}
@@ -0,0 +1,249 @@
+package com.trivia.demo.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.trivia.demo.cache.BoundedExpiringMap;
+import com.trivia.demo.config.TriviaProperties;
+import com.trivia.demo.exception.InvalidRequestException;
+import com.trivia.demo.exception.RoomNotFoundException;
+import com.trivia.demo.model.*;
+import com.trivia.demo.store.ScoreBoard;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Quizrooms voor live events: de vragen van een room worden een keer opgehaald en alleen in de room bewaard,
+ * met hun goede antwoord; ze worden bij geen sessie geregistreerd. Antwoorden worden tegen die vragen
+ * gecontroleerd, zolang de room leeft, en tellen in de score van de speler. Elke gebeurtenis wordt een keer
+ * naar JSON geserialiseerd en via een replay-sink met alleen de laatste gebeurtenis naar alle SSE-abonnees
+ * gestuurd; een late of trage speler krijgt dus direct de actuele vraag en houdt geen achterstand vast.
+ * Antwoorden worden per vraag geteld met {@link LongAdder}s, zodat duizenden spelers tegelijk kunnen antwoorden
+ * zonder op een enkele teller te wachten; alleen de actieve vraag wordt kort onder de lock van de room gelezen.
+ */
+@Service
+public class QuizRoomService implements MeterBinder {
+    private final TriviaQuestionService triviaQuestionService;
+    private final ScoreBoard scoreBoard;
+    private final ObjectMapper objectMapper;
+    private final TriviaProperties.Rooms properties;
+    private final BoundedExpiringMap<String, Room> rooms;
+    private final LongAdder answers = new LongAdder();
+
+    public QuizRoomService(TriviaQuestionService triviaQuestionService, ScoreBoard scoreBoard, ObjectMapper objectMapper,
+                           TriviaProperties properties){
+        this.triviaQuestionService = triviaQuestionService;
+        this.scoreBoard = scoreBoard;
+        this.objectMapper = objectMapper;
+        this.properties = properties.getRooms();
+        this.rooms = new BoundedExpiringMap<>(this.properties.getMaxRooms(), this.properties.getIdleTtl(),
+                (roomId, room, cause) -> room.events.tryEmitComplete());
+    }
+
+    public Mono<RoomDTO> createRoom(Integer amount, Long categoryId){
+        if(amount == null || amount < 1 || amount > this.properties.getMaxQuestions()){
+            throw new InvalidRequestException("Aantal vragen in een quizroom moet tussen 1 en " + this.properties.getMaxQuestions() + " liggen.");
+        }
+        String roomId = UUID.randomUUID().toString();
+        return this.triviaQuestionService.getRoomQuestions(amount, categoryId)
+                .map(asked -> {
+                    List<QuestionDTO> questions = new ArrayList<>(asked.size());
+                    for(Question question : asked){
+                        questions.add(new EncodedQuestionDTO(question));
+                    }
+                    Room room = new Room(roomId, UUID.randomUUID().toString(), categoryId, questions, asked);
+                    this.rooms.put(roomId, room);
+                    return room.toDTO(true);
+                });
+    }
+
+    public RoomDTO getRoom(String roomId){
+        return this.room(roomId).toDTO(false);
+    }
+
+    public Flux<ServerSentEvent<String>> events(String roomId){
+        return this.room(roomId).events.asFlux();
+    }
+
+    /**
+     * Sluit de actieve vraag af met de uitslag en stuurt de volgende vraag naar alle spelers; na de laatste vraag
+     * wordt de room afgesloten.
+     */
+    public RoomDTO next(String roomId, String hostKey){
+        Room room = this.room(roomId);
+        if(!room.hostKey.equals(hostKey)){
+            throw new InvalidRequestException("Alleen de host van de quizroom kan de volgende vraag starten.");
+        }
+        synchronized(room){
+            if(room.finished){
+                throw new InvalidRequestException("De quizroom is al afgelopen.");
+            }
+            int previous = room.current;
+            if(previous >= 0){
+                this.publish(room, new RoomEvent(RoomEvent.RESULTS, previous, null, room.results(previous)));
+            }
+            if(previous + 1 < room.questions.size()){
+                room.current = previous + 1;
+                this.publish(room, new RoomEvent(RoomEvent.QUESTION, room.current, room.questions.get(room.current), null));
+            } else {
+                room.finished = true;
+                this.publish(room, new RoomEvent(RoomEvent.FINISHED, previous, null, null));
+                room.events.tryEmitComplete();
+            }
+            return room.toDTO(false);
+        }
+    }
+
+    /**
+     * Telt het antwoord van een speler op de actieve vraag. Het antwoord moet de vraag noemen
+     * ({@code question_id} of {@code question}), zodat een antwoord dat na {@link #next} binnenkomt niet op de
+     * nieuwe vraag gescoord wordt.
+     */
+    public AnswerResultDTO answer(String roomId, String sessionId, AnswerDTO answerDTO){
+        if(answerDTO.getQuestion_id() == null && answerDTO.getQuestion() == null){
+            throw new InvalidRequestException("Een antwoord in een quizroom moet de vraag noemen (question_id of question).");
+        }
+        Room room = this.room(roomId);
+        int index;
+        synchronized(room){
+            index = room.current;
+            if(index < 0 || room.finished){
+                throw new InvalidRequestException("Er is geen actieve vraag in deze quizroom.");
+            }
+        }
+        QuestionDTO current = room.questions.get(index);
+        boolean sameQuestion = answerDTO.getQuestion_id() != null ? answerDTO.getQuestion_id().equals(current.getId())
+                : answerDTO.getQuestion().equals(current.getQuestion());
+        if(!sameQuestion){
+            throw new InvalidRequestException("Deze vraag is niet meer actief.");
+        }
+        Tally tally = room.tallies[index];
+        if(!tally.answeredBy.add(sessionId)){
+            throw new InvalidRequestException("Deze vraag is al beantwoord.");
+        }
+        Question question = room.asked.get(index);
+        boolean correct = question.getCorrect_answer().equalsIgnoreCase(answerDTO.getChosen_answer());
+        this.scoreBoard.record(sessionId, question.getId() == null ? -1 : question.getId(), correct);
+        tally.record(tally.answers.indexOf(answerDTO.getChosen_answer()), correct);
+        this.answers.increment();
+        return new AnswerResultDTO(current.getId(), current.getQuestion(), true, correct);
+    }
+
+    public RoomResultsDTO results(String roomId, int index){
+        Room room = this.room(roomId);
+        if(index < 0 || index > room.current){
+            throw new InvalidRequestException("Vraag " + index + " is in deze quizroom nog niet gesteld.");
+        }
+        return room.results(index);
+    }
+
+    private void publish(Room room, RoomEvent event){
+        String json;
+        try{
+            json = this.objectMapper.writeValueAsString(event);
+        } catch (JsonProcessingException ex){
+            throw new IllegalStateException("Kon quizroom event niet serialiseren.", ex);
+        }
+        room.events.tryEmitNext(ServerSentEvent.builder(json).id(String.valueOf(room.sequence++)).event(event.getType()).build());
+    }
+
+    private Room room(String roomId){
+        Room room = this.rooms.get(roomId);
+        if(room == null){
+            throw new RoomNotFoundException(roomId);
+        }
+        return room;
+    }
+
+    public int roomCount(){
+        return this.rooms.size();
+    }
+
+    public int playerCount(){
+        int[] players = new int[1];
+        this.rooms.forEachValue(room -> players[0] += room.events.currentSubscriberCount());
+        return players[0];
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry){
+        Gauge.builder("trivia.rooms.active", this, QuizRoomService::roomCount).register(registry);
+        Gauge.builder("trivia.rooms.players", this, QuizRoomService::playerCount).register(registry);
+        FunctionCounter.builder("trivia.rooms.answers", this.answers, LongAdder::sum).register(registry);
+    }
+
+    private static final class Room {
+        private final String id;
+        private final String hostKey;
+        private final Long categoryId;
+        private final List<QuestionDTO> questions;
+        private final List<Question> asked;
+        private final Tally[] tallies;
+        private final Sinks.Many<ServerSentEvent<String>> events = Sinks.many().replay().latest();
+        private volatile int current = -1;
+        private volatile boolean finished;
+        private long sequence;
+
+        private Room(String id, String hostKey, Long categoryId, List<QuestionDTO> questions, List<Question> asked){
+            this.id = id;
+            this.hostKey = hostKey;
+            this.categoryId = categoryId;
+            this.questions = List.copyOf(questions);
+            this.asked = List.copyOf(asked);
+            this.tallies = new Tally[questions.size()];
+            for(int i = 0; i < this.tallies.length; i++){
+                this.tallies[i] = new Tally(questions.get(i).getAnswers());
+            }
+        }
+
+        private RoomResultsDTO results(int index){
+            Tally tally = this.tallies[index];
+            Map<String, Long> perAnswer = new LinkedHashMap<>();
+            for(int i = 0; i < tally.answers.size(); i++){
+                perAnswer.put(tally.answers.get(i), tally.perAnswer[i].sum());
+            }
+            return new RoomResultsDTO(index, this.questions.get(index).getQuestion(), tally.answered.sum(), tally.correct.sum(), perAnswer);
+        }
+
+        private RoomDTO toDTO(boolean withHostKey){
+            return new RoomDTO(this.id, withHostKey ? this.hostKey : null, this.categoryId, this.questions.size(),
+                    this.current, this.finished, this.events.currentSubscriberCount());
+        }
+    }
+
+    private static final class Tally {
+        private final List<String> answers;
+        private final LongAdder answered = new LongAdder();
+        private final LongAdder correct = new LongAdder();
+        private final LongAdder[] perAnswer;
+        private final Set<String> answeredBy = ConcurrentHashMap.newKeySet();
+
+        private Tally(List<String> answers){
+            this.answers = answers;
+            this.perAnswer = new LongAdder[answers.size()];
+            for(int i = 0; i < this.perAnswer.length; i++){
+                this.perAnswer[i] = new LongAdder();
+            }
+        }
+
+        private void record(int answer, boolean isCorrect){
+            this.answered.increment();
+            if(isCorrect){
+                this.correct.increment();
+            }
+            if(answer >= 0){
+                this.perAnswer[answer].increment();
+            }
+        }
+    }
+}
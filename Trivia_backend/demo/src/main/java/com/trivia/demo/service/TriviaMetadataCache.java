@@ -0,0 +1,56 @@
+package com.trivia.demo.service;
+
+import com.trivia.demo.cache.RefreshAheadCache;
+import com.trivia.demo.config.TriviaProperties;
+import com.trivia.demo.model.TriviaCategoriesResponse;
+import com.trivia.demo.model.TriviaCategory;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+@Component
+public class TriviaMetadataCache implements MeterBinder {
+    private static final String ALL_CATEGORIES = "all";
+    private static final Long ANY_CATEGORY = -1L;
+
+    private final OpenTriviaApiClient apiClient;
+    private final RefreshAheadCache<String, List<TriviaCategory>> categories;
+    private final RefreshAheadCache<Long, Integer> questionCounts;
+
+    public TriviaMetadataCache(OpenTriviaApiClient apiClient, TriviaProperties properties){
+        this.apiClient = apiClient;
+        TriviaProperties.Cache cache = properties.getCache();
+        this.categories = new RefreshAheadCache<>("categories", cache.getTtl(), cache.getRefreshBeforeExpiry(),
+                key -> apiClient.getCategories().map(TriviaCategoriesResponse::getTrivia_categories));
+        this.questionCounts = new RefreshAheadCache<>("category-counts", cache.getTtl(), cache.getRefreshBeforeExpiry(),
+                categoryId -> apiClient.getTotalAmountOfQuestionsForCategory(ANY_CATEGORY.equals(categoryId) ? null : categoryId));
+    }
+
+    /**
+     * Als opentdb niet bereikbaar is, wordt de laatst bekende (eventueel verlopen) lijst teruggegeven.
+     */
+    public Mono<List<TriviaCategory>> getCategories(){
+        return this.categories.get(ALL_CATEGORIES).onErrorResume(ex -> stale(this.categories, ALL_CATEGORIES, ex));
+    }
+
+    /**
+     * Het aantal vragen zonder categorie wordt onder een eigen sleutel gecachet, net als dat van een categorie.
+     */
+    public Mono<Integer> getTotalAmountOfQuestionsForCategory(Long categoryId){
+        Long key = categoryId == null ? ANY_CATEGORY : categoryId;
+        return this.questionCounts.get(key).onErrorResume(ex -> stale(this.questionCounts, key, ex));
+    }
+
+    private static <K, V> Mono<V> stale(RefreshAheadCache<K, V> cache, K key, Throwable ex){
+        return cache.getIfPresent(key).map(Mono::just).orElseGet(() -> Mono.error(ex));
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry){
+        this.categories.bindTo(registry);
+        this.questionCounts.bindTo(registry);
+    }
+}
@@ -1,16 +1,27 @@
 package com.trivia.demo.service;
 
+import com.trivia.demo.config.TriviaProperties;
 import com.trivia.demo.exception.CategoryNotFoundException;
 import com.trivia.demo.exception.InvalidRequestException;
+import com.trivia.demo.exception.NotEnoughQuestionsException;
 import com.trivia.demo.exception.QuestionNotFoundException;
 import com.trivia.demo.exception.SessionNotFoundException;
+import com.trivia.demo.exception.UpstreamUnavailableException;
 import com.trivia.demo.intefaces.IQuestionMap;
 import com.trivia.demo.model.*;
-import org.apache.commons.text.StringEscapeUtils;
+import com.trivia.demo.store.QuestionBank;
+import com.trivia.demo.store.QuestionIndex;
+import com.trivia.demo.store.ScoreBoard;
+import com.trivia.demo.store.SeenQuestions;
+import com.trivia.demo.upstream.AdmissionController;
+import com.trivia.demo.upstream.UpstreamScheduler;
 import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
 
 @Service
 public class TriviaQuestionService {
@@ -18,96 +29,550 @@ public class TriviaQuestionService {
     private final OpenTriviaApiClient apiClient;
     private final TriviaSessionService sessionService;
     private final IQuestionMap questionMap;
+    private final QuestionPool questionPool;
+    private final TriviaMetadataCache metadataCache;
+    private final AnswerTokenSigner answerTokenSigner;
+    private final QuestionBank questionBank;
+    private final QuestionIndex questionIndex;
+    private final SeenQuestions seenQuestions;
+    private final AdmissionController admissionController;
+    private final PrefetchBuffer prefetchBuffer;
+    private final ScoreBoard scoreBoard;
+    private final TriviaProperties.Questions questionsProperties;
 
     private static final int MAX_API_LIMIT = 50;
+    private static final int MAX_BATCH_ANSWERS = 500;
+    private static final Set<String> DIFFICULTIES = Set.of("easy", "medium", "hard");
+    private static final Set<String> TYPES = Set.of("multiple", "boolean");
 
-    public TriviaQuestionService(OpenTriviaApiClient apiClient,TriviaSessionService sessionService,IQuestionMap questionMap){
+    public TriviaQuestionService(OpenTriviaApiClient apiClient,TriviaSessionService sessionService,IQuestionMap questionMap,
+                                 QuestionPool questionPool,TriviaMetadataCache metadataCache,
+                                 AnswerTokenSigner answerTokenSigner,QuestionBank questionBank,QuestionIndex questionIndex,
+                                 SeenQuestions seenQuestions,AdmissionController admissionController,
+                                 PrefetchBuffer prefetchBuffer,ScoreBoard scoreBoard,TriviaProperties properties){
         this.apiClient = apiClient;
         this.sessionService = sessionService;
         this.questionMap = questionMap;
+        this.questionPool = questionPool;
+        this.metadataCache = metadataCache;
+        this.answerTokenSigner = answerTokenSigner;
+        this.questionBank = questionBank;
+        this.questionIndex = questionIndex;
+        this.seenQuestions = seenQuestions;
+        this.admissionController = admissionController;
+        this.prefetchBuffer = prefetchBuffer;
+        this.scoreBoard = scoreBoard;
+        this.questionsProperties = properties.getQuestions();
     }
 
     public Mono<List<TriviaCategory>> getCategories(){
-        return apiClient.getCategories()
-                .map(TriviaCategoriesResponse::getTrivia_categories)
-                .onErrorMap(ex -> new RuntimeException("Kon category niet ophalen. Error: " + ex.getMessage()));
+        return this.metadataCache.getCategories()
+                .onErrorResume(ex -> {
+                    List<TriviaCategory> local = this.questionIndex.categories();
+                    return local.isEmpty() ? Mono.error(ex) : Mono.just(local);
+                })
+                .onErrorMap(ex -> !(ex instanceof UpstreamUnavailableException),
+                        ex -> new RuntimeException("Kon category niet ophalen. Error: " + ex.getMessage()));
     }
 
     public Mono<List<QuestionDTO>> getQuestions(Integer amount, Long categoryId, String sessionId) {
+        return this.getQuestions(amount, categoryId, null, null, sessionId);
+    }
+
+    /**
+     * Met een filter op moeilijkheid of type worden de vragen alleen uit de lokale index gehaald, zonder
+     * upstream calls.
+     */
+    public Mono<List<QuestionDTO>> getQuestions(Integer amount, Long categoryId, String difficulty, String type, String sessionId) {
         if(amount == null || amount < 1){
             throw new InvalidRequestException("Aantal vragen moet minimaal 1 zijn.");
         }
-        return this.sessionService.getOrCreateSessionToken(sessionId)
-                .flatMap(token -> this.apiClient.getTotalAmountOfQuestionsForCategory(categoryId)
+        if(difficulty != null || type != null){
+            return Mono.just(this.takeFromIndex(sessionId, Math.min(amount, this.questionsProperties.getMaxAmount()),
+                    categoryId, difficulty, type));
+        }
+        Mono<List<Question>> prefetched = amount <= MAX_API_LIMIT ? this.prefetchBuffer.take(sessionId, categoryId, amount) : null;
+        Mono<List<QuestionDTO>> questions = prefetched == null ? this.fetchQuestions(amount, categoryId, sessionId)
+                : prefetched.map(batch -> this.selectPrefetched(sessionId, amount, categoryId, batch))
+                        .filter(questionDTOs -> !questionDTOs.isEmpty())
+                        .switchIfEmpty(Mono.defer(() -> this.fetchQuestions(amount, categoryId, sessionId)));
+        return questions.doOnSuccess(served -> this.prefetchNext(sessionId, amount, categoryId));
+    }
+
+    private Mono<List<QuestionDTO>> fetchQuestions(int amount, Long categoryId, String sessionId){
+        if(amount <= MAX_API_LIMIT){
+            List<QuestionDTO> pooled = this.takeFromPool(sessionId, amount, categoryId);
+            if(!pooled.isEmpty()){
+                return Mono.just(pooled);
+            }
+        }
+        return this.admissionController.admit(() -> this.withSession(sessionId, Mono.defer(() -> this.metadataCache.getTotalAmountOfQuestionsForCategory(categoryId)))
                 .flatMap(total -> {
                     if(total == null || total == 0){
                         throw new CategoryNotFoundException(categoryId);
                     }
-                    int fixedAmount = Math.min(amount, MAX_API_LIMIT);
+                    this.questionPool.register(categoryId, total);
+                    int fixedAmount = Math.min(amount, this.questionsProperties.getMaxAmount());
                     int finalAmount = Math.min(fixedAmount,total);
-                    return this.fetchQuestionsWithAutoReset(sessionId,finalAmount,categoryId);
-                    }));
+                    return this.fetchQuestionsPaged(sessionId,finalAmount,categoryId);
+                    }), TriviaQuestionService::isUpstreamFailure)
+                .onErrorResume(TriviaQuestionService::isUpstreamFailure, ex -> {
+                    List<QuestionDTO> local = this.takeLocally(sessionId, amount, categoryId);
+                    return local.isEmpty() ? Mono.error(ex) : Mono.just(local);
+                });
+    }
+
+    /**
+     * Vragen voor een quizroom: uit de pool, anders met een call zonder token naar opentdb, en een tekort
+     * aangevuld uit de lokale index. De vragen worden bij geen sessie geregistreerd of als gezien gemarkeerd;
+     * de room bewaart ze zelf.
+     */
+    public Mono<List<Question>> getRoomQuestions(int amount, Long categoryId){
+        List<Question> pooled = this.questionPool.take(categoryId, amount, q -> true);
+        if(!pooled.isEmpty()){
+            return Mono.just(pooled);
+        }
+        return this.admissionController.admit(() -> Mono.defer(() -> this.metadataCache.getTotalAmountOfQuestionsForCategory(categoryId))
+                .flatMap(total -> {
+                    if(total == null || total == 0){
+                        throw new CategoryNotFoundException(categoryId);
+                    }
+                    this.questionPool.register(categoryId, total);
+                    return this.fetchQuestionsFromAPI(Math.min(amount, total), categoryId, null, UpstreamScheduler.Priority.INTERACTIVE);
+                })
+                .map(response -> {
+                    List<Question> results = response.getResults() == null ? Collections.emptyList() : response.getResults();
+                    this.questionBank.append(categoryId, results);
+                    List<Question> decoded = new ArrayList<>(results.size());
+                    for(Question q : results){
+                        decoded.add(this.decodeQuestion(q));
+                    }
+                    this.questionIndex.addAll(categoryId, decoded);
+                    return decoded;
+                }), TriviaQuestionService::isUpstreamFailure)
+                .onErrorResume(TriviaQuestionService::isUpstreamFailure, ex -> {
+                    List<Question> local = this.questionIndex.sample(categoryId, null, null, amount, q -> true);
+                    return local.isEmpty() ? Mono.error(ex) : Mono.just(local);
+                })
+                .map(questions -> this.select(amount, categoryId, questions, q -> true, q -> true))
+                .flatMap(questions -> questions.isEmpty() ? Mono.error(new NotEnoughQuestionsException(categoryId, amount, 0))
+                        : Mono.just(questions));
+    }
+
+    /**
+     * Kiest uit een vooruit opgehaalde batch, net als bij een gewone fetch, de vragen die de sessie nog niet
+     * gezien heeft; tekorten worden aangevuld uit de lokale index.
+     */
+    private List<QuestionDTO> selectPrefetched(String sessionId, int amount, Long categoryId, List<Question> batch){
+        List<QuestionDTO> questionDTOs = new ArrayList<>(amount);
+        for(Question q : this.selectUnseen(sessionId, amount, categoryId, batch)){
+            questionDTOs.add(this.toQuestionDTO(sessionId, q));
+        }
+        return questionDTOs;
+    }
+
+    /**
+     * Haalt in prefetch-modus alvast de volgende batch voor de sessie op, met het token van de sessie en op
+     * achtergrondprioriteit. Kan de pool de volgende batch al leveren, dan is dat niet nodig.
+     */
+    private void prefetchNext(String sessionId, int amount, Long categoryId){
+        if(!this.prefetchBuffer.isEnabled() || sessionId == null || amount > MAX_API_LIMIT
+                || this.questionPool.size(categoryId) >= amount){
+            return;
+        }
+        this.prefetchBuffer.prefetch(sessionId, categoryId, amount,
+                () -> this.fetchRawQuestionsWithAutoReset(sessionId, amount, categoryId, UpstreamScheduler.Priority.BACKGROUND)
+                        .map(questions -> {
+                            List<Question> decoded = new ArrayList<>(questions.size());
+                            for(Question q : questions){
+                                decoded.add(this.decodeQuestion(q));
+                            }
+                            this.questionIndex.addAll(categoryId, decoded);
+                            return decoded;
+                        }));
+    }
+
+    /**
+     * Noodvoorraad als opentdb niet bereikbaar is, het circuit open staat of het verzoek niet toegelaten wordt:
+     * vragen uit de lokale index die de sessie nog niet gezien heeft.
+     */
+    private List<QuestionDTO> takeLocally(String sessionId, int amount, Long categoryId){
+        List<Question> sampled = this.questionIndex.sample(categoryId, null, null,
+                Math.min(amount, this.questionsProperties.getMaxAmount()), this.unseenBy(sessionId));
+        List<QuestionDTO> questionDTOs = new ArrayList<>(sampled.size());
+        for(Question q : sampled){
+            questionDTOs.add(this.toQuestionDTO(sessionId, q));
+        }
+        return questionDTOs;
+    }
+
+    private static boolean isUpstreamFailure(Throwable ex){
+        return !(ex instanceof CategoryNotFoundException || ex instanceof InvalidRequestException
+                || ex instanceof NotEnoughQuestionsException);
+    }
+
+    /**
+     * Vraagt in token-modus eerst een opentdb token aan voor de sessie; lokaal is er niets voor te bereiden.
+     */
+    private <T> Mono<T> withSession(String sessionId, Mono<T> next){
+        if(this.sessionService.usesUpstreamTokens()){
+            return this.sessionService.getOrCreateSessionToken(sessionId).then(next);
+        }
+        return next;
+    }
+
+    /**
+     * Haalt meer dan {@value #MAX_API_LIMIT} vragen op in pagina's. Er wordt eerst op de ruwe vragen ontdubbeld
+     * en afgekapt, zodat alleen vragen die echt geserveerd worden in de sessie geregistreerd en als gezien
+     * gemarkeerd worden. Tekorten (dubbele vragen, mislukte pagina's) worden aangevuld uit de lokale index; wat
+     * dan nog ontbreekt, ontbreekt in het resultaat. Alleen als er helemaal niets over is, volgt een
+     * {@link NotEnoughQuestionsException}.
+     */
+    private Mono<List<QuestionDTO>> fetchQuestionsPaged(String sessionId, int amount, Long categoryId){
+        if(amount <= MAX_API_LIMIT){
+            return this.fetchQuestionsWithAutoReset(sessionId,amount,categoryId);
+        }
+        int pages = (amount + MAX_API_LIMIT - 1) / MAX_API_LIMIT;
+        List<Throwable> failures = Collections.synchronizedList(new ArrayList<>());
+        return Flux.range(0, pages)
+                .flatMap(page -> this.fetchRawQuestionsWithAutoReset(sessionId, Math.min(MAX_API_LIMIT, amount - page * MAX_API_LIMIT), categoryId,
+                                UpstreamScheduler.Priority.INTERACTIVE)
+                        .onErrorResume(ex -> {
+                            failures.add(ex);
+                            return Mono.empty();
+                        }), Math.max(1, this.questionsProperties.getPageConcurrency()))
+                .collectList()
+                .flatMap(results -> {
+                    if(results.isEmpty() && !failures.isEmpty()){
+                        return Mono.error(failures.getFirst());
+                    }
+                    List<Question> fetched = new ArrayList<>();
+                    for(List<Question> page : results){
+                        for(Question q : page){
+                            fetched.add(this.decodeQuestion(q));
+                        }
+                    }
+                    this.questionIndex.addAll(categoryId, fetched);
+                    List<Question> selected = this.sessionService.usesUpstreamTokens()
+                            ? this.select(amount, categoryId, fetched, q -> true, this.unseenBy(sessionId))
+                            : this.selectUnseen(sessionId, amount, categoryId, fetched);
+                    if(selected.isEmpty()){
+                        return Mono.error(new NotEnoughQuestionsException(categoryId, amount, 0));
+                    }
+                    List<QuestionDTO> questionDTOs = new ArrayList<>(selected.size());
+                    for(Question q : selected){
+                        questionDTOs.add(this.toQuestionDTO(sessionId, q));
+                    }
+                    return Mono.just(questionDTOs);
+                });
+    }
+
+    private List<QuestionDTO> takeFromPool(String sessionId, int amount, Long categoryId){
+        List<Question> pooled = this.questionPool.take(categoryId, amount, this.unseenBy(sessionId));
+        List<QuestionDTO> questionDTOs = new ArrayList<>(pooled.size());
+        for(Question q : pooled){
+            questionDTOs.add(this.toQuestionDTO(sessionId, q));
+        }
+        return questionDTOs;
+    }
+
+    private List<QuestionDTO> takeFromIndex(String sessionId, int amount, Long categoryId, String difficulty, String type){
+        if(difficulty != null && !DIFFICULTIES.contains(difficulty.toLowerCase(Locale.ROOT))){
+            throw new InvalidRequestException("Onbekende moeilijkheid: " + difficulty);
+        }
+        if(type != null && !TYPES.contains(type.toLowerCase(Locale.ROOT))){
+            throw new InvalidRequestException("Onbekend type: " + type);
+        }
+        List<Question> sampled = this.questionIndex.sample(categoryId, difficulty, type, amount, this.unseenBy(sessionId));
+        if(sampled.size() < amount){
+            throw new NotEnoughQuestionsException(categoryId, amount, sampled.size());
+        }
+        List<QuestionDTO> questionDTOs = new ArrayList<>(sampled.size());
+        for(Question q : sampled){
+            questionDTOs.add(this.toQuestionDTO(sessionId, q));
+        }
+        return questionDTOs;
+    }
+
+    public Flux<QuestionDTO> streamQuestions(Integer amount, Long categoryId, String sessionId) {
+        if(amount == null || amount < 1){
+            throw new InvalidRequestException("Aantal vragen moet minimaal 1 zijn.");
+        }
+        if(amount <= MAX_API_LIMIT){
+            List<QuestionDTO> pooled = this.takeFromPool(sessionId, amount, categoryId);
+            if(!pooled.isEmpty()){
+                return Flux.fromIterable(pooled);
+            }
+        }
+        boolean localRepeatAvoidance = !this.sessionService.usesUpstreamTokens();
+        return this.admissionController.admitMany(() -> this.withSession(sessionId, Mono.defer(() -> this.metadataCache.getTotalAmountOfQuestionsForCategory(categoryId)))
+                .flatMapMany(total -> {
+                    if(total == null || total == 0){
+                        return Flux.error(new CategoryNotFoundException(categoryId));
+                    }
+                    this.questionPool.register(categoryId, total);
+                    int finalAmount = Math.min(Math.min(amount, this.questionsProperties.getMaxAmount()), total);
+                    int pages = (finalAmount + MAX_API_LIMIT - 1) / MAX_API_LIMIT;
+                    List<Throwable> failures = Collections.synchronizedList(new ArrayList<>());
+                    Set<String> emitted = ConcurrentHashMap.newKeySet();
+                    List<Question> fetched = Collections.synchronizedList(new ArrayList<>());
+                    Flux<Question> selected = Flux.range(0, pages)
+                            .flatMap(page -> this.fetchRawQuestionsWithAutoReset(sessionId, Math.min(MAX_API_LIMIT, finalAmount - page * MAX_API_LIMIT), categoryId,
+                                            UpstreamScheduler.Priority.INTERACTIVE)
+                                    .onErrorResume(ex -> {
+                                        failures.add(ex);
+                                        return Mono.empty();
+                                    }), Math.max(1, this.questionsProperties.getPageConcurrency()))
+                            .flatMapIterable(questions -> questions)
+                            .map(this::decodeQuestion)
+                            .doOnNext(q -> {
+                                this.questionIndex.add(categoryId, q);
+                                fetched.add(q);
+                            })
+                            .filter(q -> !localRepeatAvoidance || !this.seenQuestions.hasSeen(sessionId, q))
+                            .filter(q -> emitted.add(q.getQuestion()))
+                            .take(finalAmount);
+                    if(localRepeatAvoidance){
+                        selected = selected.concatWith(Flux.defer(() ->
+                                Flux.fromIterable(this.completeUnseen(sessionId, finalAmount, categoryId, emitted, fetched))));
+                    }
+                    return selected
+                            .map(q -> this.toQuestionDTO(sessionId, q))
+                            .switchIfEmpty(Flux.defer(() -> failures.isEmpty() ? Flux.empty() : Flux.error(failures.getFirst())));
+                }), TriviaQuestionService::isUpstreamFailure)
+                .onErrorResume(TriviaQuestionService::isUpstreamFailure, ex -> {
+                    List<QuestionDTO> local = this.takeLocally(sessionId, amount, categoryId);
+                    return local.isEmpty() ? Flux.error(ex) : Flux.fromIterable(local);
+                });
     }
 
     private Mono<List<QuestionDTO>> fetchQuestionsWithAutoReset(String sessionId, Integer amount, Long categoryId){
-        return this.fetchQuestionsFromAPI(sessionId,amount,categoryId)
-                .flatMap(response -> {
-                    if(response == null){
-                        return Mono.error(new RuntimeException("Trivia API retourneerde null"));
+        return this.fetchRawQuestionsWithAutoReset(sessionId,amount,categoryId,UpstreamScheduler.Priority.INTERACTIVE)
+                .map(questions -> {
+                    List<Question> decoded = new ArrayList<>(questions.size());
+                    for(Question q : questions){
+                        decoded.add(this.decodeQuestion(q));
                     }
-                    int code = response.getResponse_code();
-                    if(code == 3 || code == 4){
-                        return this.sessionService.ensureValidToken(sessionId,code)
-                                .flatMap(newToken -> this.apiClient.getQuestions(amount,categoryId,newToken))
-                                .map(r -> mapQuestions(sessionId,r.getResults()));
+                    this.questionIndex.addAll(categoryId, decoded);
+                    if(!this.sessionService.usesUpstreamTokens()){
+                        decoded = this.selectUnseen(sessionId, amount, categoryId, decoded);
                     }
-                    else{
-                        return Mono.just(this.mapQuestions(sessionId,response.getResults()));
+                    List<QuestionDTO> questionDTOs = new ArrayList<>(decoded.size());
+                    for(Question q : decoded){
+                        questionDTOs.add(this.toQuestionDTO(sessionId, q));
                     }
-                })
-                .onErrorMap(ex -> new RuntimeException("Error bij het fetchen van vragen. Error: " + ex.getMessage()));
+                    return questionDTOs;
+                });
+    }
+
+    /**
+     * Zonder opentdb token kan de API vragen herhalen. Al geziene vragen vallen af en worden aangevuld uit de
+     * lokale index; heeft de sessie alles al gezien, dan begint de sessie opnieuw (zoals een token reset).
+     */
+    private List<Question> selectUnseen(String sessionId, int amount, Long categoryId, List<Question> questions){
+        Predicate<Question> unseen = this.unseenBy(sessionId);
+        List<Question> selected = this.select(amount, categoryId, questions, unseen, unseen);
+        if(selected.isEmpty() && !questions.isEmpty()){
+            this.seenQuestions.reset(sessionId);
+            return this.select(amount, categoryId, questions, unseen, unseen);
+        }
+        return selected;
+    }
+
+    /**
+     * Kiest hoogstens {@code amount} unieke vragen uit {@code questions} die {@code accept} doorlaten en vult
+     * een tekort aan met vragen uit de lokale index die {@code topUp} doorlaten.
+     */
+    private List<Question> select(int amount, Long categoryId, List<Question> questions, Predicate<Question> accept,
+                                  Predicate<Question> topUp){
+        Map<String, Question> selected = new LinkedHashMap<>();
+        for(Question q : questions){
+            if(selected.size() < amount && accept.test(q)){
+                selected.putIfAbsent(q.getQuestion(), q);
+            }
+        }
+        if(selected.size() < amount){
+            for(Question q : this.questionIndex.sample(categoryId, null, null, amount - selected.size(),
+                    topUp.and(q -> !selected.containsKey(q.getQuestion())))){
+                selected.put(q.getQuestion(), q);
+            }
+        }
+        return new ArrayList<>(selected.values());
+    }
+
+    /**
+     * Sluit een stream af zoals {@link #selectUnseen} een lijst: een tekort aan ongeziene vragen wordt aangevuld
+     * uit de lokale index, en heeft de sessie alles al gezien, dan begint de sessie opnieuw.
+     */
+    private List<Question> completeUnseen(String sessionId, int amount, Long categoryId, Set<String> emitted, List<Question> fetched){
+        if(emitted.size() >= amount){
+            return Collections.emptyList();
+        }
+        Predicate<Question> unseen = this.unseenBy(sessionId);
+        List<Question> topUp = this.questionIndex.sample(categoryId, null, null, amount - emitted.size(),
+                unseen.and(q -> !emitted.contains(q.getQuestion())));
+        if(topUp.isEmpty() && emitted.isEmpty() && !fetched.isEmpty()){
+            this.seenQuestions.reset(sessionId);
+            synchronized(fetched){
+                return this.select(amount, categoryId, new ArrayList<>(fetched), unseen, unseen);
+            }
+        }
+        return topUp;
+    }
+
+    private Predicate<Question> unseenBy(String sessionId){
+        return q -> !this.seenQuestions.hasSeen(sessionId, q);
+    }
+
+    private Mono<List<Question>> fetchRawQuestionsWithAutoReset(String sessionId, Integer amount, Long categoryId,
+                                                                UpstreamScheduler.Priority priority){
+        Mono<List<Question>> questions;
+        if(!this.sessionService.usesUpstreamTokens()){
+            questions = this.fetchQuestionsFromAPI(amount, categoryId, null, priority)
+                    .flatMap(response -> this.resultsOrReset(sessionId, null, amount, categoryId, priority, response));
+        } else {
+            questions = this.sessionService.getOrCreateSessionToken(sessionId)
+                    .flatMap(token -> this.fetchQuestionsFromAPI(amount, categoryId, token, priority)
+                            .flatMap(response -> this.resultsOrReset(sessionId, token, amount, categoryId, priority, response)));
+        }
+        return questions
+                .doOnNext(results -> this.questionBank.append(categoryId, results))
+                .onErrorMap(ex -> !(ex instanceof UpstreamUnavailableException),
+                        ex -> new RuntimeException("Error bij het fetchen van vragen. Error: " + ex.getMessage()));
     }
 
-    private Mono<TriviaQuestionsResponse> fetchQuestionsFromAPI(String sessionId, Integer amount, Long categoryId){
-        return this.sessionService.getOrCreateSessionToken(sessionId)
-                .flatMap(token -> this.apiClient.getQuestions(amount,categoryId, token))
-                .onErrorMap(ex -> new RuntimeException("Kon Trivia API niet benaderen. Error: " + ex.getMessage()));
+    /**
+     * Bij code 3 of 4 wordt het token waarmee gevraagd is ({@code token}) gereset en de call herhaald; heeft een
+     * andere request dat token al vervangen, dan wordt direct het nieuwe token gebruikt.
+     */
+    private Mono<List<Question>> resultsOrReset(String sessionId, String token, Integer amount, Long categoryId,
+                                                UpstreamScheduler.Priority priority, TriviaQuestionsResponse response){
+        if(response == null){
+            return Mono.error(new RuntimeException("Trivia API retourneerde null"));
+        }
+        int code = response.getResponse_code();
+        if(code == 3 || code == 4){
+            return this.sessionService.ensureValidToken(sessionId,code,token)
+                    .flatMap(newToken -> this.apiClient.getQuestions(amount,categoryId,newToken,priority))
+                    .map(TriviaQuestionsResponse::getResults);
+        }
+        return Mono.just(response.getResults());
+    }
+
+    private Mono<TriviaQuestionsResponse> fetchQuestionsFromAPI(Integer amount, Long categoryId, String token,
+                                                                UpstreamScheduler.Priority priority){
+        return this.apiClient.getQuestions(amount, categoryId, token, priority)
+                .onErrorMap(ex -> !(ex instanceof UpstreamUnavailableException),
+                        ex -> new RuntimeException("Kon Trivia API niet benaderen. Error: " + ex.getMessage()));
     }
 
 
     public boolean checkAnswer(String sessionId,AnswerDTO answerDTO){
+        if(this.answerTokenSigner.isEnabled() && answerDTO.getAnswer_token() != null){
+            boolean correct = this.answerTokenSigner.verify(answerDTO.getAnswer_token(), answerDTO.getQuestion(), answerDTO.getChosen_answer());
+            this.recordScore(sessionId, null, answerDTO.getQuestion(), correct);
+            return correct;
+        }
         Map<String,Question> questionsForUser = this.questionMap.getQuestionsForSession(sessionId);
         if(questionsForUser == null){
             throw new SessionNotFoundException(sessionId);
         }
-        Question question = questionsForUser.get(answerDTO.getQuestion());
+        Question question = null;
+        if(answerDTO.getQuestion_id() != null){
+            question = this.questionMap.getQuestionsByIdForSession(sessionId).get(answerDTO.getQuestion_id());
+        }
+        if(question == null){
+            question = questionsForUser.get(answerDTO.getQuestion());
+        }
         if(question == null){
             throw new QuestionNotFoundException(answerDTO.getQuestion());
         }
-        return question.getCorrect_answer().equalsIgnoreCase(answerDTO.getChosen_answer());
+        boolean correct = question.getCorrect_answer().equalsIgnoreCase(answerDTO.getChosen_answer());
+        this.recordScore(sessionId, question, answerDTO.getQuestion(), correct);
+        return correct;
     }
 
-    private List<QuestionDTO> mapQuestions(String sessionId,List<Question> questions){
-        List<QuestionDTO> questionDTOs = new ArrayList<>();
-        for(Question q : questions){
-            if(q.getQuestion() == null){
-                throw new IllegalArgumentException("Question text mag niet null zijn");
+    public BatchAnswerResultDTO checkAnswers(String sessionId, List<AnswerDTO> answerDTOs){
+        if(answerDTOs == null || answerDTOs.isEmpty()){
+            throw new InvalidRequestException("Er moet minimaal 1 antwoord worden meegestuurd.");
+        }
+        if(answerDTOs.size() > MAX_BATCH_ANSWERS){
+            throw new InvalidRequestException("Er kunnen maximaal " + MAX_BATCH_ANSWERS + " antwoorden tegelijk worden gecontroleerd.");
+        }
+        Map<String, Question> questionsByText = null;
+        Map<Integer, Question> questionsById = null;
+        List<AnswerResultDTO> results = new ArrayList<>(answerDTOs.size());
+        int correct = 0;
+        for(AnswerDTO answerDTO : answerDTOs){
+            boolean found;
+            boolean isCorrect = false;
+            Question question = null;
+            if(this.answerTokenSigner.isEnabled() && answerDTO.getAnswer_token() != null){
+                try{
+                    isCorrect = this.answerTokenSigner.verify(answerDTO.getAnswer_token(), answerDTO.getQuestion(), answerDTO.getChosen_answer());
+                    found = true;
+                } catch (InvalidRequestException ex){
+                    found = false;
+                }
+            } else {
+                if(answerDTO.getQuestion_id() != null){
+                    if(questionsById == null){
+                        questionsById = this.questionMap.getQuestionsByIdForSession(sessionId);
+                    }
+                    question = questionsById.get(answerDTO.getQuestion_id());
+                }
+                if(question == null && answerDTO.getQuestion() != null){
+                    if(questionsByText == null){
+                        questionsByText = this.questionMap.getQuestionsForSession(sessionId);
+                    }
+                    question = questionsByText.get(answerDTO.getQuestion());
+                }
+                found = question != null;
+                isCorrect = found && question.getCorrect_answer().equalsIgnoreCase(answerDTO.getChosen_answer());
             }
-            this.decodeHtmlForQuestion(q);
-            this.questionMap.addQuestion(sessionId,q);
-            questionDTOs.add(new QuestionDTO(q));
+            if(found){
+                this.recordScore(sessionId, question, answerDTO.getQuestion(), isCorrect);
+            }
+            if(isCorrect){
+                correct++;
+            }
+            results.add(new AnswerResultDTO(answerDTO.getQuestion_id(), answerDTO.getQuestion(), found, isCorrect));
         }
-        return questionDTOs;
+        return new BatchAnswerResultDTO(results, results.size(), correct);
+    }
+
+    public List<LeaderboardEntryDTO> getLeaderboard(Integer limit){
+        if(limit == null || limit < 1){
+            throw new InvalidRequestException("Limit moet minimaal 1 zijn.");
+        }
+        return this.scoreBoard.leaderboard(limit);
+    }
+
+    public ScoreDTO getScore(String sessionId){
+        return this.scoreBoard.score(sessionId);
+    }
+
+    private void recordScore(String sessionId, Question question, String questionText, boolean correct){
+        Question known = question != null || questionText == null ? question : this.questionIndex.find(questionText);
+        Integer id = known == null ? null : known.getId();
+        this.scoreBoard.record(sessionId, id == null ? -1 : id, correct);
+    }
+
+    private Question decodeQuestion(Question question){
+        if(question.getQuestion() == null){
+            throw new IllegalArgumentException("Question text mag niet null zijn");
+        }
+        return QuestionDecoder.decode(question, this.questionIndex::find);
     }
 
-    private void decodeHtmlForQuestion(Question question){
-        question.setQuestion(StringEscapeUtils.unescapeHtml4(question.getQuestion()));
-        question.setCorrect_answer(StringEscapeUtils.unescapeHtml4(question.getCorrect_answer()));
-        if(question.getIncorrect_answers() != null){
-            List<String> incorrectAnswersDecoded = question.getIncorrect_answers().stream()
-                    .map(StringEscapeUtils::unescapeHtml4)
-                    .toList();
-            question.setIncorrect_answers(incorrectAnswersDecoded);
+    private QuestionDTO toQuestionDTO(String sessionId, Question question){
+        this.seenQuestions.markSeen(sessionId, question);
+        if(this.answerTokenSigner.isEnabled()){
+            QuestionDTO questionDTO = new EncodedQuestionDTO(question);
+            questionDTO.setAnswer_token(this.answerTokenSigner.sign(question));
+            return questionDTO;
         }
+        this.questionMap.addQuestion(sessionId, question);
+        return new EncodedQuestionDTO(question);
     }
 }
@@ -1,47 +1,118 @@
 package com.trivia.demo.service;
 
+import com.trivia.demo.cache.BoundedExpiringMap;
+import com.trivia.demo.cache.SingleFlight;
+import com.trivia.demo.config.TriviaProperties;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
 import org.springframework.stereotype.Service;
 import reactor.core.publisher.Mono;
 
-import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
 
 @Service
-public class TriviaSessionService {
+public class TriviaSessionService implements MeterBinder {
     private final OpenTriviaApiClient apiClient;
-    private final Map<String, String> sessionMap = new ConcurrentHashMap<>();
+    private final BoundedExpiringMap<String, String> sessionMap;
+    private final SingleFlight<String, String> tokenRequests = new SingleFlight<>();
+    private final SingleFlight<String, String> tokenResets = new SingleFlight<>();
+    private final LongAdder tokensCreated = new LongAdder();
+    private final LongAdder tokensReset = new LongAdder();
+    private final boolean upstreamTokens;
 
-    public TriviaSessionService(OpenTriviaApiClient apiClient){
+    public TriviaSessionService(OpenTriviaApiClient apiClient, TriviaProperties properties){
         this.apiClient = apiClient;
+        TriviaProperties.Sessions sessions = properties.getSessions();
+        this.upstreamTokens = "token".equalsIgnoreCase(sessions.getRepeatAvoidance());
+        this.sessionMap = new BoundedExpiringMap<>(sessions.getMaxSessions(), sessions.getIdleTtl(), null);
+    }
+
+    /**
+     * Met {@code trivia.sessions.repeat-avoidance=token} krijgt elke sessie een opentdb token; standaard
+     * ({@code local}) worden herhalingen lokaal voorkomen en vraagt een sessie nooit een token aan.
+     */
+    public boolean usesUpstreamTokens(){
+        return this.upstreamTokens;
     }
 
     public Mono<String> getOrCreateSessionToken(String sessionId){
         return Mono.defer(() -> {
              String token = this.sessionMap.get(sessionId);
              if(token == null){
-                 return this.apiClient.requestNewToken().doOnNext(newToken -> this.sessionMap.put(sessionId, newToken));
+                 return this.tokenRequests.execute(sessionId, () -> this.apiClient.requestNewToken()
+                         .doOnNext(newToken -> {
+                             this.tokensCreated.increment();
+                             this.sessionMap.put(sessionId, newToken);
+                         }));
              }
              return Mono.just(token);
          });
     }
 
     public Mono<String> resetTokenForSession(String sessionId){
-        String oldToken = this.sessionMap.get(sessionId);
-        Mono<String> resetMono;
-        if(oldToken != null){
-            resetMono = this.apiClient.resetToken(oldToken);
-        } else{
-            resetMono = this.apiClient.requestNewToken();
-        }
-        return resetMono.doOnNext(newToken -> this.sessionMap.put(sessionId, newToken));
+        return this.resetTokenForSession(sessionId, null);
+    }
+
+    /**
+     * Reset het token van de sessie na een code 3/4 op {@code failedToken}. Heeft de sessie inmiddels een ander
+     * token (een eerdere reset is al klaar), dan wordt dat token teruggegeven in plaats van het opnieuw te
+     * resetten. Zonder {@code failedToken} wordt altijd gereset.
+     */
+    public Mono<String> resetTokenForSession(String sessionId, String failedToken){
+        return this.tokenResets.execute(sessionId, () -> {
+            String oldToken = this.sessionMap.get(sessionId);
+            if(failedToken != null && oldToken != null && !oldToken.equals(failedToken)){
+                return Mono.just(oldToken);
+            }
+            Mono<String> resetMono;
+            if(oldToken != null){
+                resetMono = this.apiClient.resetToken(oldToken).doOnNext(newToken -> this.tokensReset.increment());
+            } else{
+                resetMono = this.apiClient.requestNewToken().doOnNext(newToken -> this.tokensCreated.increment());
+            }
+            return resetMono.doOnNext(newToken -> this.sessionMap.put(sessionId, newToken));
+        });
     }
 
 
     public Mono<String> ensureValidToken(String sessionId, int lastResponseCode){
+        return this.ensureValidToken(sessionId, lastResponseCode, null);
+    }
+
+    public Mono<String> ensureValidToken(String sessionId, int lastResponseCode, String failedToken){
         if(lastResponseCode == 3 || lastResponseCode == 4){
-            return this.resetTokenForSession(sessionId);
+            return this.resetTokenForSession(sessionId, failedToken);
         }
         return this.getOrCreateSessionToken(sessionId);
     }
 
+    public int sessionCount(){
+        return this.sessionMap.size();
+    }
+
+    public long tokensCreated(){
+        return this.tokensCreated.sum();
+    }
+
+    public long deduplicatedTokenRequests(){
+        return this.tokenRequests.sharedCalls();
+    }
+
+    public long deduplicatedTokenResets(){
+        return this.tokenResets.sharedCalls();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry){
+        FunctionCounter.builder("trivia.session.tokens", this.tokensCreated, LongAdder::sum)
+                .tag("operation", "create").register(registry);
+        FunctionCounter.builder("trivia.session.tokens", this.tokensReset, LongAdder::sum)
+                .tag("operation", "reset").register(registry);
+        FunctionCounter.builder("trivia.session.token.deduplicated", this.tokenRequests, SingleFlight::sharedCalls)
+                .tag("operation", "request").register(registry);
+        FunctionCounter.builder("trivia.session.token.deduplicated", this.tokenResets, SingleFlight::sharedCalls)
+                .tag("operation", "reset").register(registry);
+    }
+
 }
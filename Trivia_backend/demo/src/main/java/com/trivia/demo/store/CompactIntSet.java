@@ -0,0 +1,80 @@
+package com.trivia.demo.store;
+
+import java.util.Arrays;
+
+/**
+ * Compacte set van niet-negatieve int Ids, in de geest van een roaring bitmap container. Zolang de set
+ * klein is, staan de Ids gesorteerd in een int[] (4 bytes per Id, binair zoeken). Zodra een bitmap tot
+ * aan het hoogste Id kleiner is dan die array, wordt de set omgezet naar een long[] bitmap (1 bit per Id).
+ */
+public class CompactIntSet {
+    private int[] sorted = new int[8];
+    private long[] bits;
+    private int size;
+    private int max = -1;
+
+    public synchronized boolean add(int id){
+        if(id < 0){
+            throw new IllegalArgumentException("Id mag niet negatief zijn.");
+        }
+        if(this.bits != null){
+            int word = id >>> 6;
+            if(word >= this.bits.length){
+                this.bits = Arrays.copyOf(this.bits, Math.max(word + 1, this.bits.length * 2));
+            }
+            long mask = 1L << id;
+            if((this.bits[word] & mask) != 0){
+                return false;
+            }
+            this.bits[word] |= mask;
+        } else {
+            int index = Arrays.binarySearch(this.sorted, 0, this.size, id);
+            if(index >= 0){
+                return false;
+            }
+            index = -index - 1;
+            if(this.size == this.sorted.length){
+                this.sorted = Arrays.copyOf(this.sorted, this.sorted.length * 2);
+            }
+            System.arraycopy(this.sorted, index, this.sorted, index + 1, this.size - index);
+            this.sorted[index] = id;
+        }
+        this.size++;
+        this.max = Math.max(this.max, id);
+        if(this.bits == null && this.size * 4L > ((this.max >>> 6) + 1) * 8L){
+            this.toBitmap();
+        }
+        return true;
+    }
+
+    public synchronized boolean contains(int id){
+        if(id < 0 || id > this.max){
+            return false;
+        }
+        if(this.bits != null){
+            return (this.bits[id >>> 6] & (1L << id)) != 0;
+        }
+        return Arrays.binarySearch(this.sorted, 0, this.size, id) >= 0;
+    }
+
+    public synchronized int size(){
+        return this.size;
+    }
+
+    public synchronized void clear(){
+        this.sorted = new int[8];
+        this.bits = null;
+        this.size = 0;
+        this.max = -1;
+    }
+
+    private void toBitmap(){
+        long[] bitmap = new long[(this.max >>> 6) + 1];
+        for(int i = 0; i < this.size; i++){
+            int id = this.sorted[i];
+            bitmap[id >>> 6] |= 1L << id;
+        }
+        this.bits = bitmap;
+        this.sorted = null;
+    }
+}
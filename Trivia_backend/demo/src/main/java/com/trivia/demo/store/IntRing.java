@@ -0,0 +1,60 @@
+package com.trivia.demo.store;
+
+import java.util.Arrays;
+
+/**
+ * Compacte, begrensde set van int Ids. Ids worden in een groeiende int[] bewaard; is de maximale
+ * grootte bereikt, dan overschrijft een nieuw Id het oudste. Voor de kleine aantallen per sessie is
+ * een lineaire scan over een int[] goedkoper dan een hash-structuur met boxed Integers.
+ */
+public class IntRing {
+    private final int maxSize;
+    private int[] ids = new int[8];
+    private int size;
+    private int next;
+
+    public IntRing(int maxSize){
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * Voegt een Id toe; {@code true} als de ring daardoor groter werd (niet bij een bekend Id of een volle ring).
+     */
+    public synchronized boolean add(int id){
+        if(this.indexOf(id) >= 0){
+            return false;
+        }
+        if(this.size < this.maxSize){
+            if(this.size == this.ids.length){
+                this.ids = Arrays.copyOf(this.ids, Math.min(this.maxSize, this.ids.length * 2));
+            }
+            this.ids[this.size++] = id;
+            return true;
+        }
+        this.ids[this.next] = id;
+        this.next = (this.next + 1) % this.maxSize;
+        return false;
+    }
+
+    public synchronized boolean contains(int id){
+        return this.indexOf(id) >= 0;
+    }
+
+    public synchronized int size(){
+        return this.size;
+    }
+
+    public synchronized int[] toArray(){
+        return Arrays.copyOf(this.ids, this.size);
+    }
+
+    private int indexOf(int id){
+        int[] current = this.ids;
+        for(int i = 0; i < this.size; i++){
+            if(current[i] == id){
+                return i;
+            }
+        }
+        return -1;
+    }
+}
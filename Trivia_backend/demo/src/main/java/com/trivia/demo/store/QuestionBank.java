@@ -0,0 +1,292 @@
+package com.trivia.demo.store;
+
+import com.trivia.demo.config.TriviaProperties;
+import com.trivia.demo.model.Question;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+import java.util.zip.CRC32;
+
+/**
+ * Persistente vragenbank op schijf. Elke vraag die van opentdb binnenkomt wordt (zoals ontvangen, dus nog
+ * niet gedecodeerd) eenmalig achteraan het bestand toegevoegd; bij het opstarten wordt het bestand via
+ * memory-mapped I/O ingelezen, zodat een herstarte node direct uit de lokale bank kan serveren.
+ *
+ * <p>Formaat: een header {@code TQB1}, gevolgd door records {@code [lengte][crc32][payload]}. De payload
+ * bevat het categorie-Id (-1 zonder categorie) en de velden van de vraag als UTF-8 strings. Een half
+ * geschreven record aan het einde (bijvoorbeeld na een crash) wordt bij het openen afgekapt.
+ */
+@Component
+public class QuestionBank {
+    private static final Logger log = LoggerFactory.getLogger(QuestionBank.class);
+    private static final int MAGIC = 0x54514231;
+    private static final int RECORD_HEADER_BYTES = 8;
+    private static final long NO_CATEGORY = -1L;
+
+    private final boolean enabled;
+    private final Path path;
+    private final Set<String> persisted = ConcurrentHashMap.newKeySet();
+    private final ExecutorService writer;
+    private final Object channelLock = new Object();
+    private FileChannel channel;
+    private volatile boolean opened;
+
+    public QuestionBank(TriviaProperties properties){
+        TriviaProperties.Bank bank = properties.getBank();
+        this.enabled = bank.isEnabled();
+        this.path = Path.of(bank.getPath());
+        this.writer = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "trivia-question-bank");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public boolean isEnabled(){
+        return this.enabled;
+    }
+
+    public int size(){
+        return this.persisted.size();
+    }
+
+    /**
+     * Leest de bank in en geeft elke opgeslagen vraag met zijn categorie-Id door. Daarna staat het bestand
+     * open voor nieuwe records. Kan maar een keer aangeroepen worden; latere aanroepen geven 0 terug.
+     */
+    public synchronized int load(BiConsumer<Long, Question> consumer){
+        if(!this.enabled || this.opened){
+            return 0;
+        }
+        long start = System.nanoTime();
+        synchronized(this.channelLock){
+            try{
+                Path parent = this.path.toAbsolutePath().getParent();
+                if(parent != null){
+                    Files.createDirectories(parent);
+                }
+                this.channel = FileChannel.open(this.path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+                long validLength = this.read(consumer);
+                if(validLength < this.channel.size()){
+                    log.warn("Vragenbank {} bevat een onvolledig record; bestand wordt afgekapt op {} bytes.", this.path, validLength);
+                    this.channel.truncate(validLength);
+                }
+                this.channel.position(validLength);
+                log.info("Vragenbank {} geladen: {} vragen in {} ms.", this.path, this.persisted.size(),
+                        TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+                return this.persisted.size();
+            } catch (IOException ex){
+                log.warn("Vragenbank {} kon niet geopend worden: {}", this.path, ex.getMessage());
+                this.closeChannel();
+                return 0;
+            } finally {
+                this.opened = true;
+            }
+        }
+    }
+
+    /**
+     * Voegt de vragen die nog niet in de bank staan toe. Het encoderen gebeurt direct, het schrijven
+     * asynchroon op een eigen thread onder een eigen lock, zodat de aanroeper nooit op schijf-I/O wacht
+     * (behalve de allereerste keer, als de bank nog niet geladen was).
+     */
+    public void append(Long categoryId, Collection<Question> questions){
+        if(!this.enabled || questions == null || questions.isEmpty()){
+            return;
+        }
+        if(!this.opened){
+            this.load((id, question) -> {});
+        }
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        for(Question question : questions){
+            if(question.getQuestion() != null && this.persisted.add(question.getQuestion())){
+                writeRecord(bytes, categoryId, question);
+            }
+        }
+        if(bytes.size() == 0){
+            return;
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(bytes.toByteArray());
+        this.writer.execute(() -> this.write(buffer));
+    }
+
+    @PreDestroy
+    public void close(){
+        this.writer.shutdown();
+        try{
+            this.writer.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException ex){
+            Thread.currentThread().interrupt();
+        }
+        synchronized(this.channelLock){
+            this.closeChannel();
+        }
+    }
+
+    /**
+     * Leest alle records en geeft de lengte van het geldige deel terug. Een mapping is hoogstens 2 GB, dus
+     * grotere bestanden worden in vensters gelezen; een record dat over de rand van een venster loopt, wordt
+     * vanaf zijn begin in het volgende venster gelezen.
+     */
+    private long read(BiConsumer<Long, Question> consumer) throws IOException{
+        long size = this.channel.size();
+        if(size == 0){
+            this.channel.write(ByteBuffer.allocate(4).putInt(0, MAGIC));
+            return 4;
+        }
+        ByteBuffer header = ByteBuffer.allocate(4);
+        if(size < 4 || this.channel.read(header, 0) < 4 || header.getInt(0) != MAGIC){
+            throw new IOException("Geen geldige vragenbank (onbekende header).");
+        }
+        CRC32 crc = new CRC32();
+        long offset = 4;
+        while(offset < size){
+            long window = Math.min(size - offset, Integer.MAX_VALUE);
+            int consumed = this.readRecords(this.channel.map(FileChannel.MapMode.READ_ONLY, offset, window), crc, consumer);
+            boolean lastWindow = offset + window == size;
+            offset += consumed;
+            if(lastWindow || consumed == 0){
+                return offset;
+            }
+        }
+        return offset;
+    }
+
+    private int readRecords(MappedByteBuffer buffer, CRC32 crc, BiConsumer<Long, Question> consumer){
+        while(buffer.remaining() >= RECORD_HEADER_BYTES){
+            int recordStart = buffer.position();
+            int length = buffer.getInt();
+            int checksum = buffer.getInt();
+            if(length < 0 || length > buffer.remaining()){
+                return recordStart;
+            }
+            ByteBuffer payload = buffer.slice(buffer.position(), length);
+            crc.reset();
+            crc.update(payload.duplicate());
+            if((int) crc.getValue() != checksum){
+                return recordStart;
+            }
+            buffer.position(buffer.position() + length);
+            long categoryId = payload.getLong();
+            Question question = readQuestion(payload);
+            if(question.getQuestion() != null && this.persisted.add(question.getQuestion())){
+                consumer.accept(categoryId == NO_CATEGORY ? null : categoryId, question);
+            }
+        }
+        return buffer.position();
+    }
+
+    private void write(ByteBuffer buffer){
+        synchronized(this.channelLock){
+            if(this.channel == null){
+                return;
+            }
+            try{
+                while(buffer.hasRemaining()){
+                    this.channel.write(buffer);
+                }
+            } catch (IOException ex){
+                log.warn("Schrijven naar vragenbank {} mislukt: {}", this.path, ex.getMessage());
+            }
+        }
+    }
+
+    private void closeChannel(){
+        if(this.channel != null){
+            try{
+                this.channel.close();
+            } catch (IOException ex){
+                log.warn("Sluiten van vragenbank {} mislukt: {}", this.path, ex.getMessage());
+            }
+            this.channel = null;
+        }
+    }
+
+    private static void writeRecord(ByteArrayOutputStream out, Long categoryId, Question question){
+        try{
+            ByteArrayOutputStream payloadBytes = new ByteArrayOutputStream(256);
+            DataOutputStream payload = new DataOutputStream(payloadBytes);
+            payload.writeLong(categoryId == null ? NO_CATEGORY : categoryId);
+            writeString(payload, question.getType());
+            writeString(payload, question.getDifficulty());
+            writeString(payload, question.getCategory());
+            writeString(payload, question.getQuestion());
+            writeString(payload, question.getCorrect_answer());
+            List<String> incorrect = question.getIncorrect_answers();
+            payload.writeInt(incorrect == null ? -1 : incorrect.size());
+            if(incorrect != null){
+                for(String answer : incorrect){
+                    writeString(payload, answer);
+                }
+            }
+            CRC32 crc = new CRC32();
+            crc.update(payloadBytes.toByteArray());
+            DataOutputStream record = new DataOutputStream(out);
+            record.writeInt(payloadBytes.size());
+            record.writeInt((int) crc.getValue());
+            payloadBytes.writeTo(record);
+        } catch (IOException ex){
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException{
+        if(value == null){
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static Question readQuestion(ByteBuffer payload){
+        Question question = new Question();
+        question.setType(readString(payload));
+        question.setDifficulty(readString(payload));
+        question.setCategory(readString(payload));
+        question.setQuestion(readString(payload));
+        question.setCorrect_answer(readString(payload));
+        int incorrectCount = payload.getInt();
+        if(incorrectCount >= 0){
+            List<String> incorrect = new ArrayList<>(incorrectCount);
+            for(int i = 0; i < incorrectCount; i++){
+                incorrect.add(readString(payload));
+            }
+            question.setIncorrect_answers(incorrect);
+        }
+        return question;
+    }
+
+    private static String readString(ByteBuffer payload){
+        int length = payload.getInt();
+        if(length < 0){
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        payload.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
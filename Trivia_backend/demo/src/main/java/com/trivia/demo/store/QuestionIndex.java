@@ -0,0 +1,217 @@
+package com.trivia.demo.store;
+
+import com.trivia.demo.model.Question;
+import com.trivia.demo.model.TriviaCategory;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Predicate;
+
+/**
+ * Lokale index over de {@link QuestionStore} op (categorie, moeilijkheid, type). Elke combinatie houdt een
+ * compacte int array met vraag-Ids bij. Een steekproef zonder teruglegging kost tijd evenredig met het aantal
+ * trekkingen: een Fisher-Yates shuffle waarbij alleen de verwisselde posities in een map bijgehouden worden.
+ * Vragen die zonder categorie opgehaald zijn, worden onder het categorie-Id van hun categorienaam geindexeerd
+ * zodra dat Id bekend is, dus zodra een vraag met dezelfde naam onder een categorie binnengekomen is.
+ */
+@Component
+public class QuestionIndex {
+    private static final long ANY_CATEGORY = -1L;
+
+    private final QuestionStore questionStore;
+    private final Map<Key, Bucket> buckets = new ConcurrentHashMap<>();
+    private final Map<String, Long> categoryIds = new ConcurrentHashMap<>();
+    private final BitSet indexed = new BitSet();
+    private final BitSet categorized = new BitSet();
+
+    public QuestionIndex(QuestionStore questionStore){
+        this.questionStore = questionStore;
+    }
+
+    /**
+     * Interned een (gedecodeerde) vraag in de store en neemt deze op in de index. Een vraag staat onder
+     * hooguit een categorie: komt deze eerst zonder en later met categorie binnen, dan wordt deze alsnog onder
+     * die categorie opgenomen, daarna niet meer opnieuw.
+     */
+    public int add(Long categoryId, Question question){
+        int id = this.questionStore.intern(question);
+        String name = question.getCategory();
+        synchronized(this.indexed){
+            if(categoryId != null && name != null){
+                this.learn(name, categoryId);
+            }
+            Long resolved = categoryId != null || name == null ? categoryId : this.categoryIds.get(name);
+            if(!this.indexed.get(id)){
+                this.indexed.set(id);
+                this.bucket(resolved == null ? ANY_CATEGORY : resolved, question).add(id);
+                if(resolved != null){
+                    this.categorized.set(id);
+                }
+            } else if(resolved != null && !this.categorized.get(id)){
+                this.categorized.set(id);
+                this.bucket(resolved, question).add(id);
+            }
+        }
+        return id;
+    }
+
+    public void addAll(Long categoryId, Collection<Question> questions){
+        for(Question question : questions){
+            if(question.getQuestion() != null){
+                this.add(categoryId, question);
+            }
+        }
+    }
+
+    /**
+     * De opgeslagen vraag met deze (gedecodeerde) tekst, of {@code null} als de vraag nog onbekend is.
+     */
+    public Question find(String questionText){
+        return this.questionStore.get(this.questionStore.idOf(questionText));
+    }
+
+    /**
+     * De categorieen waarvan vragen in de index staan, met de naam zoals die bij de vragen staat.
+     */
+    public List<TriviaCategory> categories(){
+        Map<Long, String> names = new TreeMap<>();
+        this.buckets.forEach((key, bucket) -> {
+            if(key.categoryId() != ANY_CATEGORY && bucket.size > 0 && !names.containsKey(key.categoryId())){
+                Question question = this.questionStore.get(bucket.ids[0]);
+                if(question != null && question.getCategory() != null){
+                    names.put(key.categoryId(), question.getCategory());
+                }
+            }
+        });
+        List<TriviaCategory> categories = new ArrayList<>(names.size());
+        names.forEach((id, name) -> categories.add(new TriviaCategory(id, name)));
+        return categories;
+    }
+
+    /**
+     * Aantal geindexeerde vragen voor de filters; {@code null} betekent "geen filter". Zonder categoriefilter
+     * tellen vragen die pas later een categorie kregen dubbel mee.
+     */
+    public int size(Long categoryId, String difficulty, String type){
+        int size = 0;
+        for(Bucket bucket : this.matching(categoryId, difficulty, type)){
+            size += bucket.size;
+        }
+        return size;
+    }
+
+    /**
+     * Trekt uniform en zonder teruglegging maximaal {@code amount} vragen die aan de filters en aan
+     * {@code accept} voldoen. Geweigerde vragen tellen niet mee; er wordt doorgetrokken tot er genoeg zijn
+     * of de populatie op is. Een vraag die zowel zonder als met categorie geindexeerd is, komt maar een keer
+     * in de steekproef.
+     */
+    public List<Question> sample(Long categoryId, String difficulty, String type, int amount, Predicate<Question> accept){
+        List<Bucket> matching = this.matching(categoryId, difficulty, type);
+        int[][] ids = new int[matching.size()][];
+        int[] offsets = new int[matching.size() + 1];
+        for(int b = 0; b < matching.size(); b++){
+            Bucket bucket = matching.get(b);
+            int size = bucket.size;
+            ids[b] = bucket.ids;
+            offsets[b + 1] = offsets[b] + size;
+        }
+        int population = offsets[matching.size()];
+        List<Question> sample = new ArrayList<>(Math.min(amount, population));
+        Map<Integer, Integer> swapped = new HashMap<>();
+        Set<Integer> drawn = new HashSet<>();
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for(int i = 0; i < population && sample.size() < amount; i++){
+            int j = i + random.nextInt(population - i);
+            int picked = swapped.getOrDefault(j, j);
+            swapped.put(j, swapped.getOrDefault(i, i));
+            int bucket = Arrays.binarySearch(offsets, picked);
+            bucket = bucket >= 0 ? bucket : -bucket - 2;
+            while(offsets[bucket + 1] == offsets[bucket]){
+                bucket++;
+            }
+            int id = ids[bucket][picked - offsets[bucket]];
+            if(!drawn.add(id)){
+                continue;
+            }
+            Question question = this.questionStore.get(id);
+            if(question != null && accept.test(question)){
+                sample.add(question);
+            }
+        }
+        return sample;
+    }
+
+    /**
+     * Onthoudt het Id van een categorienaam en neemt de vragen met die naam die tot nu toe alleen zonder
+     * categorie geindexeerd waren alsnog onder dat Id op. Alleen aanroepen met de lock op {@code indexed}.
+     */
+    private void learn(String name, long categoryId){
+        if(this.categoryIds.putIfAbsent(name, categoryId) != null){
+            return;
+        }
+        List<Question> pending = new ArrayList<>();
+        this.buckets.forEach((key, bucket) -> {
+            if(key.categoryId() == ANY_CATEGORY){
+                int[] ids = bucket.ids;
+                for(int i = 0; i < bucket.size; i++){
+                    Question question = this.questionStore.get(ids[i]);
+                    if(question != null && name.equals(question.getCategory()) && !this.categorized.get(ids[i])){
+                        pending.add(question);
+                    }
+                }
+            }
+        });
+        for(Question question : pending){
+            this.categorized.set(question.getId());
+            this.bucket(categoryId, question).add(question.getId());
+        }
+    }
+
+    private Bucket bucket(long categoryId, Question question){
+        Key key = new Key(categoryId, normalize(question.getDifficulty()), normalize(question.getType()));
+        return this.buckets.computeIfAbsent(key, k -> new Bucket());
+    }
+
+    private List<Bucket> matching(Long categoryId, String difficulty, String type){
+        String normalizedDifficulty = normalize(difficulty);
+        String normalizedType = normalize(type);
+        if(categoryId != null && normalizedDifficulty != null && normalizedType != null){
+            Bucket bucket = this.buckets.get(new Key(categoryId, normalizedDifficulty, normalizedType));
+            return bucket == null ? Collections.emptyList() : List.of(bucket);
+        }
+        List<Bucket> matching = new ArrayList<>();
+        this.buckets.forEach((key, bucket) -> {
+            if((categoryId == null || key.categoryId() == categoryId)
+                    && (normalizedDifficulty == null || normalizedDifficulty.equals(key.difficulty()))
+                    && (normalizedType == null || normalizedType.equals(key.type()))){
+                matching.add(bucket);
+            }
+        });
+        return matching;
+    }
+
+    private static String normalize(String value){
+        return value == null || value.isBlank() ? null : value.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private record Key(long categoryId, String difficulty, String type) {
+    }
+
+    private static final class Bucket {
+        private volatile int[] ids = new int[16];
+        private volatile int size;
+
+        private synchronized void add(int id){
+            int[] current = this.ids;
+            if(this.size == current.length){
+                current = Arrays.copyOf(current, current.length * 2);
+                this.ids = current;
+            }
+            current[this.size] = id;
+            this.size = this.size + 1;
+        }
+    }
+}
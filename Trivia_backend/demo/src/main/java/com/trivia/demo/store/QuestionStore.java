@@ -0,0 +1,66 @@
+package com.trivia.demo.store;
+
+import com.trivia.demo.model.Question;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Globale tabel met alle unieke vragen. Elke vraag krijgt bij het internen een compact numeriek Id,
+ * zodat sessies alleen Ids hoeven bij te houden in plaats van eigen kopieen van de vraag.
+ */
+@Component
+public class QuestionStore {
+    private final Map<String, Integer> idsByText = new ConcurrentHashMap<>();
+    private volatile Question[] questions = new Question[1024];
+    private int size;
+
+    /**
+     * Geeft het Id van de vraag terug en zet dit ook op de vraag. Een vraag met een tekst die al bekend
+     * is, krijgt het Id van de eerder opgeslagen vraag.
+     */
+    public int intern(Question question){
+        if(question == null || question.getQuestion() == null){
+            throw new IllegalArgumentException("Question text mag niet null zijn");
+        }
+        Integer id = this.idsByText.get(question.getQuestion());
+        if(id == null){
+            id = this.add(question);
+        }
+        question.setId(id);
+        return id;
+    }
+
+    public Question get(int id){
+        Question[] current = this.questions;
+        return id >= 0 && id < current.length ? current[id] : null;
+    }
+
+    public int idOf(String questionText){
+        Integer id = questionText == null ? null : this.idsByText.get(questionText);
+        return id == null ? -1 : id;
+    }
+
+    public int size(){
+        return this.idsByText.size();
+    }
+
+    private synchronized int add(Question question){
+        Integer existing = this.idsByText.get(question.getQuestion());
+        if(existing != null){
+            return existing;
+        }
+        int id = this.size;
+        Question[] current = this.questions;
+        if(id == current.length){
+            current = Arrays.copyOf(current, current.length * 2);
+        }
+        current[id] = question;
+        this.questions = current;
+        this.size = id + 1;
+        this.idsByText.put(question.getQuestion(), id);
+        return id;
+    }
+}
@@ -0,0 +1,195 @@
+package com.trivia.demo.store;
+
+import com.trivia.demo.cache.BoundedExpiringMap;
+import com.trivia.demo.config.TriviaProperties;
+import com.trivia.demo.model.LeaderboardEntryDTO;
+import com.trivia.demo.model.ScoreDTO;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Scores per sessie en een top-K ranglijst. Elk gecontroleerd antwoord telt op in de {@link LongAdder}s van de
+ * sessie; per vraag (Id uit de {@link QuestionStore}) telt alleen de eerste poging, zodat een antwoord niet
+ * herhaald kan worden om punten te verzamelen. Dit is niet lock-vrij: het opzoeken van de sessie neemt de lock
+ * van haar stripe in de {@link BoundedExpiringMap}, de set met geprobeerde vragen en het vervangen van de
+ * ranglijst-entry lopen onder de monitor van de sessie. Antwoorden van sessies in verschillende stripes
+ * wachten niet op elkaar. De ranglijst is een {@link ConcurrentSkipListSet} met hoogstens
+ * K entries; alleen een sessie die de ranglijst haalt of erin stijgt, vervangt daar haar entry. Lezers lopen de
+ * set door zonder schrijvers te blokkeren. De omvang wordt apart bijgehouden, omdat
+ * {@link ConcurrentSkipListSet#size()} de hele set doorloopt; de laagste score op een volle ranglijst wordt na
+ * elke inkorting onthouden, zodat de meeste antwoorden de set niet hoeven te raken. Op de ranglijst staat een
+ * alias (hash van het sessionId), omdat het sessionId zelf als sleutel voor de sessie dient.
+ */
+@Component
+public class ScoreBoard implements MeterBinder {
+    private static final Comparator<Entry> RANKING = Comparator.comparingLong(Entry::correct).reversed()
+            .thenComparingLong(Entry::reachedAt)
+            .thenComparing(entry -> entry.score().player);
+
+    private final int size;
+    private final BoundedExpiringMap<String, Score> scores;
+    private final ConcurrentSkipListSet<Entry> ranking = new ConcurrentSkipListSet<>(RANKING);
+    private final AtomicInteger ranked = new AtomicInteger();
+    private volatile long floor;
+    private final LongAdder answered = new LongAdder();
+    private final LongAdder correct = new LongAdder();
+
+    public ScoreBoard(TriviaProperties properties){
+        TriviaProperties.Sessions sessions = properties.getSessions();
+        this.size = properties.getLeaderboard().getSize();
+        this.scores = new BoundedExpiringMap<>(sessions.getMaxSessions(), sessions.getIdleTtl(),
+                (sessionId, score, cause) -> {
+                    synchronized(score){
+                        Entry entry = score.entry.getAndSet(null);
+                        if(entry != null){
+                            this.unrank(entry);
+                        }
+                    }
+                });
+    }
+
+    /**
+     * Telt een antwoord mee voor de sessie. Een {@code questionId} kleiner dan 0 (vraag niet in de store) telt
+     * niet mee, anders kan hetzelfde antwoord onbeperkt opnieuw ingestuurd worden.
+     */
+    public void record(String sessionId, int questionId, boolean isCorrect){
+        if(sessionId == null || questionId < 0){
+            return;
+        }
+        Score score = this.scores.get(sessionId);
+        if(score == null){
+            score = this.scores.computeIfAbsent(sessionId, Score::new);
+        }
+        if(!score.attempted.add(questionId)){
+            return;
+        }
+        score.answered.increment();
+        this.answered.increment();
+        if(isCorrect){
+            score.correct.increment();
+            this.correct.increment();
+            this.rank(score, score.correct.sum());
+        }
+    }
+
+    /**
+     * Zet de sessie met haar nieuwe score op de ranglijst, als die hoog genoeg is. Per sessie gebeurt dat onder
+     * de monitor van de {@link Score}: de oude entry gaat eruit voordat de nieuwe erin komt, zodat een sessie
+     * nooit twee entries heeft en het inkorten alleen entries van andere sessies verwijdert als er echt meer dan
+     * K sessies op staan.
+     */
+    private void rank(Score score, long points){
+        if(!this.qualifies(points)){
+            return;
+        }
+        synchronized(score){
+            Entry current = score.entry.get();
+            if(current != null && current.correct() >= points){
+                return;
+            }
+            if(current != null){
+                this.unrank(current);
+            }
+            Entry next = new Entry(score, points, System.nanoTime());
+            score.entry.set(next);
+            if(this.ranking.add(next)){
+                this.ranked.incrementAndGet();
+            }
+        }
+        this.trim();
+    }
+
+    private boolean qualifies(long points){
+        if(this.ranked.get() < this.size){
+            return true;
+        }
+        return points > this.floor;
+    }
+
+    private void unrank(Entry entry){
+        if(this.ranking.remove(entry)){
+            this.ranked.decrementAndGet();
+        }
+    }
+
+    private void trim(){
+        while(this.ranked.get() > this.size){
+            Entry removed = this.ranking.pollLast();
+            if(removed == null){
+                return;
+            }
+            this.ranked.decrementAndGet();
+            removed.score().entry.compareAndSet(removed, null);
+            try{
+                this.floor = this.ranking.last().correct();
+            } catch (NoSuchElementException ex){
+                this.floor = 0;
+            }
+        }
+    }
+
+    public List<LeaderboardEntryDTO> leaderboard(int limit){
+        int max = Math.min(Math.max(limit, 1), this.size);
+        List<LeaderboardEntryDTO> top = new ArrayList<>(max);
+        Set<Score> listed = Collections.newSetFromMap(new IdentityHashMap<>());
+        for(Entry entry : this.ranking){
+            if(top.size() == max){
+                break;
+            }
+            Score score = entry.score();
+            if(listed.add(score)){
+                top.add(new LeaderboardEntryDTO(top.size() + 1, score.player, entry.correct(), score.answered.sum()));
+            }
+        }
+        return top;
+    }
+
+    public ScoreDTO score(String sessionId){
+        Score score = sessionId == null ? null : this.scores.get(sessionId);
+        if(score == null){
+            return new ScoreDTO(null, 0, 0);
+        }
+        return new ScoreDTO(score.player, score.correct.sum(), score.answered.sum());
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry){
+        FunctionCounter.builder("trivia.answers.checked", this.answered, LongAdder::sum).register(registry);
+        FunctionCounter.builder("trivia.answers.correct", this.correct, LongAdder::sum).register(registry);
+    }
+
+    private static String alias(String sessionId){
+        try{
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(sessionId.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest, 0, 6);
+        } catch (NoSuchAlgorithmException ex){
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    private static final class Score {
+        private final String player;
+        private final LongAdder answered = new LongAdder();
+        private final LongAdder correct = new LongAdder();
+        private final AtomicReference<Entry> entry = new AtomicReference<>();
+        private final CompactIntSet attempted = new CompactIntSet();
+
+        private Score(String sessionId){
+            this.player = alias(sessionId);
+        }
+    }
+
+    private record Entry(Score score, long correct, long reachedAt) {
+    }
+}
@@ -0,0 +1,58 @@
+package com.trivia.demo.store;
+
+import com.trivia.demo.cache.BoundedExpiringMap;
+import com.trivia.demo.config.TriviaProperties;
+import com.trivia.demo.model.Question;
+import org.springframework.stereotype.Component;
+
+/**
+ * Houdt per sessie bij welke vragen (Ids uit de {@link QuestionStore}) al geserveerd zijn, zodat herhalingen
+ * lokaal voorkomen worden in plaats van via een opentdb sessietoken. Sessies verlopen met dezelfde idle-TTL
+ * en limiet als de overige sessiegegevens.
+ */
+@Component
+public class SeenQuestions {
+    private final QuestionStore questionStore;
+    private final BoundedExpiringMap<String, CompactIntSet> seenBySession;
+
+    public SeenQuestions(QuestionStore questionStore, TriviaProperties properties){
+        this.questionStore = questionStore;
+        TriviaProperties.Sessions sessions = properties.getSessions();
+        this.seenBySession = new BoundedExpiringMap<>(sessions.getMaxSessions(), sessions.getIdleTtl(), null);
+    }
+
+    public void markSeen(String sessionId, Question question){
+        int id = this.idOf(question);
+        if(sessionId != null && id >= 0){
+            this.seenBySession.computeIfAbsent(sessionId, k -> new CompactIntSet()).add(id);
+        }
+    }
+
+    public boolean hasSeen(String sessionId, Question question){
+        if(sessionId == null){
+            return false;
+        }
+        CompactIntSet seen = this.seenBySession.get(sessionId);
+        return seen != null && seen.contains(this.idOf(question));
+    }
+
+    public int seenCount(String sessionId){
+        CompactIntSet seen = sessionId == null ? null : this.seenBySession.get(sessionId);
+        return seen == null ? 0 : seen.size();
+    }
+
+    /**
+     * Vergeet wat de sessie al gezien heeft; het lokale equivalent van een opentdb token reset.
+     */
+    public void reset(String sessionId){
+        CompactIntSet seen = sessionId == null ? null : this.seenBySession.get(sessionId);
+        if(seen != null){
+            seen.clear();
+        }
+    }
+
+    private int idOf(Question question){
+        Integer id = question.getId();
+        return id != null ? id : this.questionStore.idOf(question.getQuestion());
+    }
+}
@@ -0,0 +1,256 @@
+package com.trivia.demo.upstream;
+
+import com.trivia.demo.config.TriviaProperties;
+import com.trivia.demo.exception.TooManyRequestsException;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoSink;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * Begrenst het aantal verzoeken dat tegelijk op opentdb wacht. Boven de limiet komen verzoeken in een
+ * begrensde wachtrij; is die vol (of duurt het wachten te lang), dan wordt het verzoek direct geweigerd met
+ * een {@link TooManyRequestsException}. De limiet past zich aan volgens AIMD: elk snel genoeg afgerond verzoek
+ * verhoogt de limiet met {@code 1/limiet}, een te traag of door overbelasting mislukt verzoek verlaagt deze
+ * (hoogstens een keer per doorlooptijd) met 10%.
+ */
+@Component
+public class AdmissionController implements MeterBinder {
+    private static final double DECREASE_FACTOR = 0.9;
+
+    private final boolean enabled;
+    private final int minLimit;
+    private final int maxLimit;
+    private final int maxQueue;
+    private final Duration queueTimeout;
+    private final long latencyTargetNanos;
+    private final LongSupplier nanoClock;
+    private final ArrayDeque<Waiter> waiting = new ArrayDeque<>();
+
+    private final LongAdder admitted = new LongAdder();
+    private final LongAdder rejectedQueueFull = new LongAdder();
+    private final LongAdder rejectedQueueTimeout = new LongAdder();
+    private final LongAdder latencyNanos = new LongAdder();
+    private final LongAdder completed = new LongAdder();
+
+    private double limit;
+    private int inFlight;
+    private long lastDecrease;
+
+    @Autowired
+    public AdmissionController(TriviaProperties properties){
+        this(properties.getAdmission(), System::nanoTime);
+    }
+
+    AdmissionController(TriviaProperties.Admission admission, LongSupplier nanoClock){
+        if(admission.getMinLimit() < 1 || admission.getMaxLimit() < admission.getMinLimit() || admission.getMaxQueue() < 0){
+            throw new IllegalArgumentException("Ongeldige limieten voor admission control.");
+        }
+        this.enabled = admission.isEnabled();
+        this.minLimit = admission.getMinLimit();
+        this.maxLimit = admission.getMaxLimit();
+        this.maxQueue = admission.getMaxQueue();
+        this.queueTimeout = admission.getQueueTimeout();
+        this.latencyTargetNanos = admission.getLatencyTarget().toNanos();
+        this.nanoClock = nanoClock;
+        this.limit = Math.clamp(admission.getInitialLimit(), this.minLimit, this.maxLimit);
+        this.lastDecrease = nanoClock.getAsLong();
+    }
+
+    /**
+     * Voert {@code call} uit zodra er ruimte is. Fouten waarvoor {@code overload} {@code true} geeft, tellen
+     * als signaal van overbelasting en verlagen de limiet.
+     */
+    public <T> Mono<T> admit(Supplier<Mono<T>> call, Predicate<Throwable> overload){
+        if(!this.enabled){
+            return Mono.defer(call);
+        }
+        return this.acquire()
+                .doOnDiscard(Permit.class, permit -> this.release(permit, Outcome.IGNORED))
+                .flatMap(permit -> call.get()
+                        .doOnSuccess(value -> this.release(permit, Outcome.COMPLETED))
+                        .doOnError(ex -> this.release(permit, overload.test(ex) ? Outcome.OVERLOADED : Outcome.COMPLETED))
+                        .doOnCancel(() -> this.release(permit, Outcome.IGNORED)));
+    }
+
+    /**
+     * Als {@link #admit(Supplier, Predicate)}, maar de plek blijft bezet tot de stream afgerond is.
+     */
+    public <T> Flux<T> admitMany(Supplier<Flux<T>> call, Predicate<Throwable> overload){
+        if(!this.enabled){
+            return Flux.defer(call);
+        }
+        return this.acquire()
+                .doOnDiscard(Permit.class, permit -> this.release(permit, Outcome.IGNORED))
+                .flatMapMany(permit -> call.get()
+                        .doOnComplete(() -> this.release(permit, Outcome.COMPLETED))
+                        .doOnError(ex -> this.release(permit, overload.test(ex) ? Outcome.OVERLOADED : Outcome.COMPLETED))
+                        .doOnCancel(() -> this.release(permit, Outcome.IGNORED)));
+    }
+
+    private Mono<Permit> acquire(){
+        return Mono.create(sink -> {
+            Waiter waiter;
+            synchronized(this){
+                if(this.inFlight < (int) this.limit && this.waiting.isEmpty()){
+                    this.inFlight++;
+                    waiter = null;
+                } else if(this.waiting.size() < this.maxQueue){
+                    waiter = new Waiter(sink);
+                    this.waiting.addLast(waiter);
+                } else {
+                    this.rejectedQueueFull.increment();
+                    sink.error(new TooManyRequestsException(this.retryAfterSeconds()));
+                    return;
+                }
+            }
+            if(waiter == null){
+                this.admitted.increment();
+                sink.success(new Permit(this.nanoClock.getAsLong()));
+                return;
+            }
+            Disposable timeout = Schedulers.parallel().schedule(() -> {
+                if(waiter.claim()){
+                    this.remove(waiter);
+                    this.rejectedQueueTimeout.increment();
+                    sink.error(new TooManyRequestsException(this.retryAfterSeconds()));
+                }
+            }, this.queueTimeout.toNanos(), TimeUnit.NANOSECONDS);
+            waiter.timeout = timeout;
+            sink.onCancel(() -> {
+                if(waiter.claim()){
+                    this.remove(waiter);
+                    timeout.dispose();
+                }
+            });
+        });
+    }
+
+    private void release(Permit permit, Outcome outcome){
+        if(!permit.released.compareAndSet(false, true)){
+            return;
+        }
+        long now = this.nanoClock.getAsLong();
+        long latency = now - permit.startedAt;
+        if(outcome != Outcome.IGNORED){
+            this.latencyNanos.add(latency);
+            this.completed.increment();
+        }
+        List<Waiter> granted = new ArrayList<>();
+        synchronized(this){
+            this.inFlight--;
+            if(outcome == Outcome.OVERLOADED || (outcome == Outcome.COMPLETED && latency > this.latencyTargetNanos)){
+                if(now - this.lastDecrease >= latency){
+                    this.limit = Math.max(this.minLimit, this.limit * DECREASE_FACTOR);
+                    this.lastDecrease = now;
+                }
+            } else if(outcome == Outcome.COMPLETED){
+                this.limit = Math.min(this.maxLimit, this.limit + 1.0 / this.limit);
+            }
+            while(this.inFlight < (int) this.limit && !this.waiting.isEmpty()){
+                Waiter waiter = this.waiting.pollFirst();
+                if(waiter.claim()){
+                    this.inFlight++;
+                    granted.add(waiter);
+                }
+            }
+        }
+        for(Waiter waiter : granted){
+            if(waiter.timeout != null){
+                waiter.timeout.dispose();
+            }
+            this.admitted.increment();
+            waiter.sink.success(new Permit(this.nanoClock.getAsLong()));
+        }
+    }
+
+    private synchronized void remove(Waiter waiter){
+        this.waiting.remove(waiter);
+    }
+
+    /**
+     * Schatting van de tijd tot er weer ruimte is: de gemiddelde doorlooptijd maal het aantal rondes dat
+     * nodig is om de huidige wachtrij weg te werken, minimaal een seconde.
+     */
+    private long retryAfterSeconds(){
+        long count = this.completed.sum();
+        double averageNanos = count == 0 ? this.latencyTargetNanos : (double) this.latencyNanos.sum() / count;
+        double rounds;
+        synchronized(this){
+            rounds = (this.waiting.size() + this.inFlight) / Math.max(1.0, this.limit);
+        }
+        return Math.max(1, (long) Math.ceil(averageNanos * rounds / 1_000_000_000.0));
+    }
+
+    public synchronized int limit(){
+        return (int) this.limit;
+    }
+
+    public synchronized int inFlight(){
+        return this.inFlight;
+    }
+
+    public synchronized int queued(){
+        return this.waiting.size();
+    }
+
+    public long rejectedCount(){
+        return this.rejectedQueueFull.sum() + this.rejectedQueueTimeout.sum();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry){
+        Gauge.builder("trivia.admission.limit", this, AdmissionController::limit).register(registry);
+        Gauge.builder("trivia.admission.in_flight", this, AdmissionController::inFlight).register(registry);
+        Gauge.builder("trivia.admission.queued", this, AdmissionController::queued).register(registry);
+        FunctionCounter.builder("trivia.admission.admitted", this.admitted, LongAdder::sum).register(registry);
+        FunctionCounter.builder("trivia.admission.rejected", this.rejectedQueueFull, LongAdder::sum)
+                .tag("reason", "queue_full").register(registry);
+        FunctionCounter.builder("trivia.admission.rejected", this.rejectedQueueTimeout, LongAdder::sum)
+                .tag("reason", "queue_timeout").register(registry);
+    }
+
+    private enum Outcome {
+        COMPLETED,
+        OVERLOADED,
+        IGNORED
+    }
+
+    private record Permit(long startedAt, AtomicBoolean released) {
+        private Permit(long startedAt){
+            this(startedAt, new AtomicBoolean());
+        }
+    }
+
+    private static final class Waiter {
+        private final MonoSink<Permit> sink;
+        private final AtomicBoolean claimed = new AtomicBoolean();
+        private volatile Disposable timeout;
+
+        private Waiter(MonoSink<Permit> sink){
+            this.sink = sink;
+        }
+
+        private boolean claim(){
+            return this.claimed.compareAndSet(false, true);
+        }
+    }
+}
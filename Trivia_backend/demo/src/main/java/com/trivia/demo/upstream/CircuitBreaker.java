@@ -0,0 +1,133 @@
+package com.trivia.demo.upstream;
+
+import com.trivia.demo.exception.UpstreamUnavailableException;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Circuit breaker voor een upstream endpoint. Na {@code failureThreshold} opeenvolgende fouten gaat het
+ * circuit open en falen calls direct met een {@link UpstreamUnavailableException}. Na {@code openDuration}
+ * wordt een enkele proef-call doorgelaten (half-open): slaagt die, dan sluit het circuit, anders gaat het
+ * opnieuw open.
+ */
+public class CircuitBreaker {
+    private final String name;
+    private final int failureThreshold;
+    private final long openDurationNanos;
+    private final LongSupplier nanoClock;
+    private final LongAdder rejected = new LongAdder();
+    private State state = State.CLOSED;
+    private int consecutiveFailures;
+    private long openedAt;
+    private boolean probeInFlight;
+
+    public enum State {
+        CLOSED,
+        HALF_OPEN,
+        OPEN
+    }
+
+    public CircuitBreaker(String name, int failureThreshold, Duration openDuration){
+        this(name, failureThreshold, openDuration, System::nanoTime);
+    }
+
+    CircuitBreaker(String name, int failureThreshold, Duration openDuration, LongSupplier nanoClock){
+        if(failureThreshold < 1 || openDuration.isNegative() || openDuration.isZero()){
+            throw new IllegalArgumentException("Drempel en open-duur van circuit breaker " + name + " moeten positief zijn.");
+        }
+        this.name = name;
+        this.failureThreshold = failureThreshold;
+        this.openDurationNanos = openDuration.toNanos();
+        this.nanoClock = nanoClock;
+    }
+
+    /**
+     * Voert {@code call} uit als het circuit dat toelaat. Elke subscription (dus ook elke retry) wordt
+     * opnieuw tegen het circuit gecontroleerd; {@code call} hoort daarom precies een upstream call te zijn.
+     * Alleen het afbreken van de proef-call geeft de proefplek weer vrij.
+     */
+    public <T> Mono<T> protect(Mono<T> call){
+        return Mono.defer(() -> {
+            Permit permit = this.acquire();
+            if(permit == Permit.REJECTED){
+                this.rejected.increment();
+                return Mono.error(new UpstreamUnavailableException(this.name));
+            }
+            boolean probe = permit == Permit.PROBE;
+            return call
+                    .doOnSuccess(value -> this.onSuccess(probe))
+                    .doOnError(ex -> this.onFailure(probe))
+                    .doOnCancel(() -> {
+                        if(probe){
+                            this.releaseProbe();
+                        }
+                    });
+        });
+    }
+
+    private synchronized Permit acquire(){
+        if(this.state == State.OPEN){
+            if(this.nanoClock.getAsLong() - this.openedAt < this.openDurationNanos){
+                return Permit.REJECTED;
+            }
+            this.state = State.HALF_OPEN;
+        }
+        if(this.state == State.HALF_OPEN){
+            if(this.probeInFlight){
+                return Permit.REJECTED;
+            }
+            this.probeInFlight = true;
+            return Permit.PROBE;
+        }
+        return Permit.CALL;
+    }
+
+    private synchronized void onSuccess(boolean probe){
+        if(probe || this.state == State.CLOSED){
+            this.state = State.CLOSED;
+            this.consecutiveFailures = 0;
+        }
+        if(probe){
+            this.probeInFlight = false;
+        }
+    }
+
+    private synchronized void onFailure(boolean probe){
+        this.consecutiveFailures++;
+        if(probe || (this.state == State.CLOSED && this.consecutiveFailures >= this.failureThreshold)){
+            this.state = State.OPEN;
+            this.openedAt = this.nanoClock.getAsLong();
+        }
+        if(probe){
+            this.probeInFlight = false;
+        }
+    }
+
+    private synchronized void releaseProbe(){
+        this.probeInFlight = false;
+    }
+
+    public synchronized State state(){
+        if(this.state == State.OPEN && this.nanoClock.getAsLong() - this.openedAt >= this.openDurationNanos){
+            return State.HALF_OPEN;
+        }
+        return this.state;
+    }
+
+    public boolean isOpen(){
+        return this.state() == State.OPEN;
+    }
+
+    public long rejectedCount(){
+        return this.rejected.sum();
+    }
+
+    private enum Permit {
+        REJECTED,
+        CALL,
+        PROBE
+    }
+}
@@ -0,0 +1,64 @@
+package com.trivia.demo.upstream;
+
+import java.time.Duration;
+import java.util.function.LongSupplier;
+
+/**
+ * Token bucket met een vaste burst-capaciteit die elke refill-periode met een token wordt aangevuld.
+ */
+public class TokenBucket {
+    private final int capacity;
+    private final long refillPeriodNanos;
+    private final LongSupplier nanoClock;
+    private double tokens;
+    private long lastRefill;
+
+    public TokenBucket(int capacity, Duration refillPeriod){
+        this(capacity, refillPeriod, System::nanoTime);
+    }
+
+    TokenBucket(int capacity, Duration refillPeriod, LongSupplier nanoClock){
+        if(capacity < 1 || refillPeriod.isNegative() || refillPeriod.isZero()){
+            throw new IllegalArgumentException("Capaciteit en refill-periode van de token bucket moeten positief zijn.");
+        }
+        this.capacity = capacity;
+        this.refillPeriodNanos = refillPeriod.toNanos();
+        this.nanoClock = nanoClock;
+        this.tokens = capacity;
+        this.lastRefill = nanoClock.getAsLong();
+    }
+
+    public synchronized boolean tryAcquire(){
+        this.refill();
+        if(this.tokens >= 1){
+            this.tokens -= 1;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Aantal nanoseconden tot er weer een token beschikbaar is (0 als er nu een beschikbaar is).
+     */
+    public synchronized long nanosUntilNextToken(){
+        this.refill();
+        if(this.tokens >= 1){
+            return 0;
+        }
+        return (long) Math.ceil((1 - this.tokens) * this.refillPeriodNanos);
+    }
+
+    public synchronized double availableTokens(){
+        this.refill();
+        return this.tokens;
+    }
+
+    private void refill(){
+        long now = this.nanoClock.getAsLong();
+        long elapsed = now - this.lastRefill;
+        if(elapsed > 0){
+            this.tokens = Math.min(this.capacity, this.tokens + (double) elapsed / this.refillPeriodNanos);
+            this.lastRefill = now;
+        }
+    }
+}
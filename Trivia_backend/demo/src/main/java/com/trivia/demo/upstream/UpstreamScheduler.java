@@ -0,0 +1,269 @@
+package com.trivia.demo.upstream;
+
+import com.trivia.demo.config.TriviaProperties;
+import com.trivia.demo.model.Question;
+import com.trivia.demo.model.TriviaQuestionsResponse;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.FunctionTimer;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PreDestroy;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoSink;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Centrale wachtrij voor alle calls naar opentdb. Calls worden op prioriteit (en daarbinnen op volgorde
+ * van binnenkomst) uitgevoerd zodra de token bucket het toelaat, zodat callers wachten in plaats van
+ * tegen de rate limit aan te lopen. Vragen-requests zonder token voor dezelfde categorie die nog in de
+ * wachtrij staan, worden samengevoegd tot een enkele call van maximaal {@value #MAX_BATCH_AMOUNT} vragen.
+ */
+@Component
+public class UpstreamScheduler implements MeterBinder {
+    public static final int MAX_BATCH_AMOUNT = 50;
+    private static final long ANY_CATEGORY = -1L;
+
+    private final TokenBucket bucket;
+    private final PriorityBlockingQueue<Task<?>> queue = new PriorityBlockingQueue<>();
+    private final Map<Long, PendingBatch> pendingBatches = new HashMap<>();
+    private final ScheduledExecutorService dispatcher;
+    private final AtomicBoolean drainScheduled = new AtomicBoolean();
+    private final AtomicLong sequence = new AtomicLong();
+
+    private final LongAdder dispatched = new LongAdder();
+    private final LongAdder mergedRequests = new LongAdder();
+    private final LongAdder waitTimeNanos = new LongAdder();
+
+    public UpstreamScheduler(TriviaProperties properties){
+        TriviaProperties.Upstream upstream = properties.getUpstream();
+        this.bucket = new TokenBucket(upstream.getBurst(), upstream.getRefillPeriod());
+        this.dispatcher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "trivia-upstream-scheduler");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public enum Priority {
+        INTERACTIVE,
+        BACKGROUND
+    }
+
+    @FunctionalInterface
+    public interface QuestionsCall {
+        Mono<TriviaQuestionsResponse> fetch(int amount, Long categoryId);
+    }
+
+    /**
+     * Plant een upstream call in. De call wordt pas gestart (en de bucket pas aangesproken) als de
+     * teruggegeven Mono gesubscribed wordt en de call aan de beurt is.
+     */
+    public <T> Mono<T> schedule(Priority priority, Supplier<Mono<T>> call){
+        return Mono.create(sink -> this.enqueue(priority, call, sink));
+    }
+
+    /**
+     * Haalt vragen op zonder sessietoken. Wachtende requests voor dezelfde categorie worden samengevoegd
+     * en de resultaten worden in volgorde over de wachtenden verdeeld. Voegt een request met een hogere
+     * prioriteit zich bij een batch, dan schuift de batch in de wachtrij mee naar die prioriteit.
+     */
+    public Mono<TriviaQuestionsResponse> fetchMerged(int amount, Long categoryId, Priority priority, QuestionsCall call){
+        if(amount < 1 || amount > MAX_BATCH_AMOUNT){
+            return this.schedule(priority, () -> call.fetch(amount, categoryId));
+        }
+        return Mono.create(sink -> {
+            long key = categoryId == null ? ANY_CATEGORY : categoryId;
+            synchronized(this.pendingBatches){
+                PendingBatch batch = this.pendingBatches.get(key);
+                if(batch == null || batch.total + amount > MAX_BATCH_AMOUNT){
+                    PendingBatch scheduled = new PendingBatch(key, categoryId, priority, call);
+                    this.pendingBatches.put(key, scheduled);
+                    Mono.<TriviaQuestionsResponse>create(taskSink ->
+                                    scheduled.task = this.enqueue(priority, () -> this.dispatch(scheduled), taskSink))
+                            .subscribe(response -> {}, ex -> {});
+                    batch = scheduled;
+                } else {
+                    this.mergedRequests.increment();
+                    if(priority.compareTo(batch.priority) < 0){
+                        this.raise(batch, priority);
+                    }
+                }
+                batch.waiters.add(new Waiter(amount, sink));
+                batch.total += amount;
+            }
+        });
+    }
+
+    private <T> Task<T> enqueue(Priority priority, Supplier<Mono<T>> call, MonoSink<T> sink){
+        Task<T> task = new Task<>(priority, this.sequence.getAndIncrement(), call, sink);
+        sink.onCancel(() -> task.cancelled = true);
+        this.queue.offer(task);
+        this.requestDrain(0);
+        return task;
+    }
+
+    /**
+     * Geeft de nog wachtende task van een batch een hogere prioriteit. De task wordt daarvoor uit de wachtrij
+     * gehaald en opnieuw ingevoegd; staat hij er al niet meer in, dan wordt hij op dat moment al verstuurd.
+     * Wordt de task verstuurd terwijl hij even uit de wachtrij is, dan slaat {@link #drain()} de opnieuw
+     * ingevoegde task over, omdat hij al gestart is.
+     */
+    private void raise(PendingBatch batch, Priority priority){
+        batch.priority = priority;
+        Task<?> task = batch.task;
+        if(task != null && !task.started && this.queue.remove(task)){
+            task.priority = priority;
+            this.queue.offer(task);
+        }
+    }
+
+    public int queueDepth(){
+        return this.queue.size();
+    }
+
+    public long dispatchedCount(){
+        return this.dispatched.sum();
+    }
+
+    public long mergedRequestCount(){
+        return this.mergedRequests.sum();
+    }
+
+    public double totalWaitTimeMillis(){
+        return this.waitTimeNanos.sum() / 1_000_000.0;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry){
+        Gauge.builder("trivia.upstream.queue.depth", this.queue, Queue::size).register(registry);
+        Gauge.builder("trivia.upstream.tokens.available", this.bucket, TokenBucket::availableTokens).register(registry);
+        FunctionTimer.builder("trivia.upstream.queue.wait", this,
+                UpstreamScheduler::dispatchedCount, UpstreamScheduler::totalWaitTimeMillis, TimeUnit.MILLISECONDS)
+                .register(registry);
+        FunctionCounter.builder("trivia.upstream.requests.merged", this.mergedRequests, LongAdder::sum).register(registry);
+    }
+
+    @PreDestroy
+    public void shutdown(){
+        this.dispatcher.shutdownNow();
+    }
+
+    private Mono<TriviaQuestionsResponse> dispatch(PendingBatch batch){
+        synchronized(this.pendingBatches){
+            this.pendingBatches.remove(batch.key, batch);
+        }
+        return batch.call.fetch(batch.total, batch.categoryId)
+                .doOnNext(response -> this.split(batch, response))
+                .doOnError(ex -> batch.waiters.forEach(waiter -> waiter.sink.error(ex)));
+    }
+
+    private void split(PendingBatch batch, TriviaQuestionsResponse response){
+        if(response.getResponse_code() == 1 && batch.waiters.size() > 1){
+            for(Waiter waiter : batch.waiters){
+                this.schedule(batch.priority, () -> batch.call.fetch(waiter.amount, batch.categoryId))
+                        .subscribe(waiter.sink::success, waiter.sink::error);
+            }
+            return;
+        }
+        List<Question> results = response.getResults() == null ? Collections.emptyList() : response.getResults();
+        int offset = 0;
+        for(Waiter waiter : batch.waiters){
+            int end = Math.min(results.size(), offset + waiter.amount);
+            List<Question> part = offset < end ? new ArrayList<>(results.subList(offset, end)) : Collections.emptyList();
+            offset = end;
+            waiter.sink.success(new TriviaQuestionsResponse(response.getResponse_code(), part));
+        }
+    }
+
+    private void requestDrain(long delayNanos){
+        if(this.drainScheduled.compareAndSet(false, true)){
+            try{
+                this.dispatcher.schedule(this::drain, delayNanos, TimeUnit.NANOSECONDS);
+            } catch (RejectedExecutionException ex){
+                this.drainScheduled.set(false);
+            }
+        }
+    }
+
+    private void drain(){
+        this.drainScheduled.set(false);
+        while(true){
+            Task<?> task = this.queue.peek();
+            if(task == null){
+                return;
+            }
+            if(task.cancelled || task.started){
+                this.queue.remove(task);
+                continue;
+            }
+            if(!this.bucket.tryAcquire()){
+                this.requestDrain(this.bucket.nanosUntilNextToken());
+                return;
+            }
+            this.queue.remove(task);
+            task.started = true;
+            this.dispatched.increment();
+            this.waitTimeNanos.add(System.nanoTime() - task.enqueuedAt);
+            task.run();
+        }
+    }
+
+    private static final class Task<T> implements Comparable<Task<?>> {
+        private Priority priority;
+        private final long sequence;
+        private final Supplier<Mono<T>> call;
+        private final MonoSink<T> sink;
+        private final long enqueuedAt = System.nanoTime();
+        private volatile boolean cancelled;
+        private volatile boolean started;
+
+        private Task(Priority priority, long sequence, Supplier<Mono<T>> call, MonoSink<T> sink){
+            this.priority = priority;
+            this.sequence = sequence;
+            this.call = call;
+            this.sink = sink;
+        }
+
+        private void run(){
+            try{
+                this.call.get().subscribe(this.sink::success, this.sink::error, this.sink::success);
+            } catch (RuntimeException ex){
+                this.sink.error(ex);
+            }
+        }
+
+        @Override
+        public int compareTo(Task<?> other){
+            int byPriority = this.priority.compareTo(other.priority);
+            return byPriority != 0 ? byPriority : Long.compare(this.sequence, other.sequence);
+        }
+    }
+
+    private static final class PendingBatch {
+        private final long key;
+        private final Long categoryId;
+        private final QuestionsCall call;
+        private final List<Waiter> waiters = new ArrayList<>();
+        private Priority priority;
+        private Task<TriviaQuestionsResponse> task;
+        private int total;
+
+        private PendingBatch(long key, Long categoryId, Priority priority, QuestionsCall call){
+            this.key = key;
+            this.categoryId = categoryId;
+            this.priority = priority;
+            this.call = call;
+        }
+    }
+
+    private record Waiter(int amount, MonoSink<TriviaQuestionsResponse> sink) {
+    }
+}
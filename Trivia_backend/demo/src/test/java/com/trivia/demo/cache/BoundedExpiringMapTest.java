@@ -0,0 +1,90 @@
+package com.trivia.demo.cache;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BoundedExpiringMapTest {
+
+    @Test
+    void testGet_idleEntry_expiresAndNotifiesListener(){
+        //Arrange
+        AtomicLong clock = new AtomicLong();
+        List<String> evicted = new ArrayList<>();
+        BoundedExpiringMap<String, String> map = new BoundedExpiringMap<>(100, Duration.ofMinutes(30),
+                (key, value, cause) -> evicted.add(key + ":" + cause), clock::get);
+        map.put("sessie1", "token1");
+        map.put("sessie2", "token2");
+
+        //Act
+        clock.set(Duration.ofMinutes(20).toNanos());
+        map.get("sessie2");
+        clock.set(Duration.ofMinutes(40).toNanos());
+
+        //Assert
+        assertNull(map.get("sessie1"));
+        assertEquals("token2", map.get("sessie2"));
+        assertEquals(List.of("sessie1:EXPIRED"), evicted);
+    }
+
+    @Test
+    void testSweep_idleEntryNeverTouchedAgain_expiresAndNotifiesListener() throws InterruptedException{
+        //Arrange
+        AtomicLong clock = new AtomicLong();
+        CountDownLatch evicted = new CountDownLatch(1);
+        BoundedExpiringMap<String, String> map = new BoundedExpiringMap<>(100, Duration.ofMinutes(30),
+                (key, value, cause) -> evicted.countDown(), clock::get);
+        map.put("sessie1", "token1");
+
+        //Act
+        clock.set(Duration.ofMinutes(40).toNanos());
+        BoundedExpiringMap.sweepPeriodically(map, Duration.ofMillis(10));
+
+        //Assert
+        assertTrue(evicted.await(5, TimeUnit.SECONDS));
+        assertEquals(0, map.size());
+    }
+
+    @Test
+    void testPut_overCapacity_evictsLeastRecentlyUsed(){
+        //Arrange
+        List<String> evicted = new ArrayList<>();
+        BoundedExpiringMap<Integer, String> map = new BoundedExpiringMap<>(16, Duration.ofMinutes(30),
+                (key, value, cause) -> evicted.add(key + ":" + cause));
+
+        //Act
+        for(int i = 0; i < 1000; i++){
+            map.put(i, "waarde" + i);
+        }
+
+        //Assert
+        assertTrue(map.size() <= 16);
+        assertEquals("waarde999", map.get(999));
+        assertNull(map.get(0));
+        assertEquals(1000 - map.size(), evicted.size());
+        assertTrue(evicted.stream().allMatch(e -> e.endsWith(":SIZE")));
+    }
+
+    @Test
+    void testStripeIndex_keysOfOneStripe_spreadOverTheStripeBuckets(){
+        //Arrange
+        Map<Integer, Set<Integer>> bucketsPerStripe = new HashMap<>();
+
+        //Act
+        for(int i = 0; i < 16_000; i++){
+            String key = "sessie-" + i;
+            int h = key.hashCode();
+            bucketsPerStripe.computeIfAbsent(BoundedExpiringMap.stripeIndex(key), k -> new HashSet<>()).add((h ^ (h >>> 16)) & 255);
+        }
+
+        //Assert
+        assertEquals(16, bucketsPerStripe.size());
+        bucketsPerStripe.values().forEach(buckets -> assertTrue(buckets.size() > 128, "buckets gebruikt: " + buckets.size()));
+    }
+}
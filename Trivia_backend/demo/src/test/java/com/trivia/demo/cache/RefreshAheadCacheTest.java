@@ -0,0 +1,63 @@
+package com.trivia.demo.cache;
+
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RefreshAheadCacheTest {
+
+    @Test
+    void testGet_concurrentColdRequests_loadOnce(){
+        //Arrange
+        AtomicInteger loads = new AtomicInteger();
+        Sinks.One<Integer> upstream = Sinks.one();
+        RefreshAheadCache<Long, Integer> cache = new RefreshAheadCache<>("test", Duration.ofMinutes(10), Duration.ofMinutes(1),
+                key -> Mono.defer(() -> {
+                    loads.incrementAndGet();
+                    return upstream.asMono();
+                }));
+
+        //Act
+        Mono<List<Integer>> results = Flux.range(0, 1000)
+                .flatMap(i -> cache.get(1L), 1000)
+                .collectList()
+                .cache();
+        results.subscribe();
+        upstream.tryEmitValue(42);
+
+        //Assert
+        List<Integer> values = results.block(Duration.ofSeconds(5));
+        assertEquals(1000, values.size());
+        assertTrue(values.stream().allMatch(value -> value == 42));
+        assertEquals(1, loads.get());
+        assertEquals(1000, cache.missCount());
+    }
+
+    @Test
+    void testGet_entryNearExpiry_servesCachedValueAndRefreshesInBackground(){
+        //Arrange
+        AtomicLong clock = new AtomicLong();
+        AtomicInteger loads = new AtomicInteger();
+        RefreshAheadCache<Long, Integer> cache = new RefreshAheadCache<>("test", Duration.ofSeconds(10), Duration.ofSeconds(2),
+                key -> Mono.fromSupplier(loads::incrementAndGet), clock::get);
+        cache.get(1L).block();
+
+        //Act
+        clock.set(Duration.ofSeconds(9).toNanos());
+        Integer served = cache.get(1L).block();
+
+        //Assert
+        assertEquals(1, served);
+        assertEquals(2, loads.get());
+        assertEquals(2, cache.get(1L).block());
+        assertEquals(2, cache.hitCount());
+    }
+}
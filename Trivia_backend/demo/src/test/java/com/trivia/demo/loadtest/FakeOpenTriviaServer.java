@@ -0,0 +1,294 @@
+package com.trivia.demo.loadtest;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import okhttp3.HttpUrl;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lokale stand-in voor opentdb op basis van MockWebServer. Serveert {@code /api.php}, {@code /api_count.php},
+ * {@code /api_category.php} en {@code /api_token.php} met gegenereerde vragen en gedraagt zich zoals opentdb:
+ * response code 1 bij te weinig vragen, 2 bij ongeldige parameters, 3 bij een onbekende token, 4 als een token
+ * alle vragen gezien heeft en 5 bij de rate limit. Latency, rate limit, willekeurig geforceerde response
+ * codes en een storing (HTTP 503 op alle endpoints) zijn instelbaar.
+ */
+public class FakeOpenTriviaServer implements Closeable {
+    private static final int FIRST_CATEGORY_ID = 9;
+    private static final int MAX_AMOUNT = 50;
+    private static final String[] DIFFICULTIES = {"easy", "medium", "hard"};
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final MockWebServer server = new MockWebServer();
+    private final List<List<Map<String, Object>>> questionsByCategory = new ArrayList<>();
+    private final Map<String, Set<Integer>> seenByToken = new ConcurrentHashMap<>();
+    private final double[] forcedResponseCodes = new double[6];
+    private final AtomicLong lastQuestionsRequest = new AtomicLong(System.nanoTime() - TimeUnit.DAYS.toNanos(1));
+    private final Map<String, LongAdder> requestCounts = new ConcurrentHashMap<>();
+
+    private Duration latency = Duration.ZERO;
+    private Duration rateLimit = Duration.ZERO;
+    private volatile boolean outage;
+
+    public FakeOpenTriviaServer(int categories, int questionsPerCategory){
+        for(int c = 0; c < categories; c++){
+            List<Map<String, Object>> questions = new ArrayList<>(questionsPerCategory);
+            for(int i = 0; i < questionsPerCategory; i++){
+                questions.add(question(FIRST_CATEGORY_ID + c, i));
+            }
+            this.questionsByCategory.add(questions);
+        }
+        this.server.setDispatcher(new Dispatcher() {
+            @Override
+            public MockResponse dispatch(RecordedRequest request){
+                return FakeOpenTriviaServer.this.dispatch(request);
+            }
+        });
+    }
+
+    public FakeOpenTriviaServer withLatency(Duration latency){
+        this.latency = latency;
+        return this;
+    }
+
+    /**
+     * Minimale tijd tussen twee calls naar {@code /api.php}; snellere calls krijgen response code 5.
+     */
+    public FakeOpenTriviaServer withRateLimit(Duration minimumInterval){
+        this.rateLimit = minimumInterval;
+        return this;
+    }
+
+    /**
+     * Laat een fractie van de calls naar {@code /api.php} met de gegeven response code (1-5) mislukken.
+     */
+    public FakeOpenTriviaServer withForcedResponseCode(int responseCode, double probability){
+        if(responseCode < 1 || responseCode > 5){
+            throw new IllegalArgumentException("Response code moet tussen 1 en 5 liggen.");
+        }
+        this.forcedResponseCodes[responseCode] = probability;
+        return this;
+    }
+
+    /**
+     * Simuleert een storing: zolang deze aan staat, antwoorden alle endpoints met HTTP 503.
+     */
+    public void setOutage(boolean outage){
+        this.outage = outage;
+    }
+
+    public String start() throws IOException{
+        this.server.start();
+        String url = this.server.url("/").toString();
+        return url.substring(0, url.length() - 1);
+    }
+
+    public Map<String, Long> requestCounts(){
+        Map<String, Long> counts = new TreeMap<>();
+        this.requestCounts.forEach((path, count) -> counts.put(path, count.sum()));
+        return counts;
+    }
+
+    @Override
+    public void close() throws IOException{
+        this.server.shutdown();
+    }
+
+    private MockResponse dispatch(RecordedRequest request){
+        HttpUrl url = request.getRequestUrl();
+        if(url == null){
+            return new MockResponse().setResponseCode(400);
+        }
+        String path = url.encodedPath();
+        this.requestCounts.computeIfAbsent(path, p -> new LongAdder()).increment();
+        if(this.outage){
+            return new MockResponse().setResponseCode(503);
+        }
+        Object body = switch(path){
+            case "/api.php" -> this.questions(url);
+            case "/api_count.php" -> this.count(url);
+            case "/api_category.php" -> this.categories();
+            case "/api_token.php" -> this.token(url);
+            default -> null;
+        };
+        if(body == null){
+            return new MockResponse().setResponseCode(404);
+        }
+        try{
+            return new MockResponse()
+                    .setHeader("Content-Type", "application/json")
+                    .setHeadersDelay(this.latency.toNanos(), TimeUnit.NANOSECONDS)
+                    .setBody(this.objectMapper.writeValueAsString(body));
+        } catch (JsonProcessingException ex){
+            return new MockResponse().setResponseCode(500);
+        }
+    }
+
+    private Map<String, Object> questions(HttpUrl url){
+        if(this.rateLimited()){
+            return questionsResponse(5, Collections.emptyList());
+        }
+        double roll = ThreadLocalRandom.current().nextDouble();
+        for(int code = 1; code < this.forcedResponseCodes.length; code++){
+            roll -= this.forcedResponseCodes[code];
+            if(roll < 0){
+                return questionsResponse(code, Collections.emptyList());
+            }
+        }
+
+        Integer amount = intParam(url, "amount");
+        Integer categoryId = intParam(url, "category");
+        if(amount == null || amount < 1 || amount > MAX_AMOUNT || (categoryId != null && this.categoryIndex(categoryId) < 0)){
+            return questionsResponse(2, Collections.emptyList());
+        }
+        String token = url.queryParameter("token");
+        Set<Integer> seen = token == null ? null : this.seenByToken.get(token);
+        if(token != null && seen == null){
+            return questionsResponse(3, Collections.emptyList());
+        }
+
+        List<Integer> candidates = this.candidates(categoryId);
+        if(seen == null){
+            if(candidates.size() < amount){
+                return questionsResponse(1, Collections.emptyList());
+            }
+            Collections.shuffle(candidates, ThreadLocalRandom.current());
+            return questionsResponse(0, this.lookup(candidates.subList(0, amount)));
+        }
+        synchronized(seen){
+            candidates.removeAll(seen);
+            if(candidates.size() < amount){
+                return questionsResponse(seen.isEmpty() ? 1 : 4, Collections.emptyList());
+            }
+            Collections.shuffle(candidates, ThreadLocalRandom.current());
+            List<Integer> picked = candidates.subList(0, amount);
+            seen.addAll(picked);
+            return questionsResponse(0, this.lookup(picked));
+        }
+    }
+
+    private Map<String, Object> count(HttpUrl url){
+        Integer categoryId = intParam(url, "category");
+        int index = categoryId == null ? -1 : this.categoryIndex(categoryId);
+        int total = index < 0 ? 0 : this.questionsByCategory.get(index).size();
+        Map<String, Object> counts = new LinkedHashMap<>();
+        counts.put("total_question_count", total);
+        counts.put("total_easy_question_count", (total + 2) / 3);
+        counts.put("total_medium_question_count", (total + 1) / 3);
+        counts.put("total_hard_question_count", total / 3);
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("category_id", categoryId);
+        response.put("category_question_count", counts);
+        return response;
+    }
+
+    private Map<String, Object> categories(){
+        List<Map<String, Object>> categories = new ArrayList<>();
+        for(int c = 0; c < this.questionsByCategory.size(); c++){
+            categories.add(Map.of("id", FIRST_CATEGORY_ID + c, "name", "Categorie " + (FIRST_CATEGORY_ID + c)));
+        }
+        return Map.of("trivia_categories", categories);
+    }
+
+    private Map<String, Object> token(HttpUrl url){
+        String command = url.queryParameter("command");
+        String token = url.queryParameter("token");
+        if("request".equals(command)){
+            String newToken = UUID.randomUUID().toString().replace("-", "");
+            this.seenByToken.put(newToken, new HashSet<>());
+            return Map.of("response_code", 0, "response_message", "Token Generated Successfully!", "token", newToken);
+        }
+        if("reset".equals(command) && token != null){
+            Set<Integer> seen = this.seenByToken.get(token);
+            if(seen == null){
+                return Map.of("response_code", 3, "token", token);
+            }
+            synchronized(seen){
+                seen.clear();
+            }
+            return Map.of("response_code", 0, "token", token);
+        }
+        return Map.of("response_code", 2);
+    }
+
+    private boolean rateLimited(){
+        if(this.rateLimit.isZero()){
+            return false;
+        }
+        long now = System.nanoTime();
+        long previous = this.lastQuestionsRequest.getAndSet(now);
+        return now - previous < this.rateLimit.toNanos();
+    }
+
+    private List<Integer> candidates(Integer categoryId){
+        int perCategory = this.questionsByCategory.isEmpty() ? 0 : this.questionsByCategory.get(0).size();
+        List<Integer> candidates = new ArrayList<>();
+        if(categoryId != null){
+            int index = this.categoryIndex(categoryId);
+            for(int i = 0; i < perCategory; i++){
+                candidates.add(index * perCategory + i);
+            }
+        } else {
+            for(int i = 0; i < this.questionsByCategory.size() * perCategory; i++){
+                candidates.add(i);
+            }
+        }
+        return candidates;
+    }
+
+    private List<Map<String, Object>> lookup(List<Integer> globalIndices){
+        int perCategory = this.questionsByCategory.get(0).size();
+        List<Map<String, Object>> results = new ArrayList<>(globalIndices.size());
+        for(int index : globalIndices){
+            results.add(this.questionsByCategory.get(index / perCategory).get(index % perCategory));
+        }
+        return results;
+    }
+
+    private int categoryIndex(int categoryId){
+        int index = categoryId - FIRST_CATEGORY_ID;
+        return index >= 0 && index < this.questionsByCategory.size() ? index : -1;
+    }
+
+    private static Integer intParam(HttpUrl url, String name){
+        String value = url.queryParameter(name);
+        if(value == null){
+            return null;
+        }
+        try{
+            return Integer.parseInt(value);
+        } catch (NumberFormatException ex){
+            return -1;
+        }
+    }
+
+    private static Map<String, Object> questionsResponse(int responseCode, List<Map<String, Object>> results){
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("response_code", responseCode);
+        response.put("results", results);
+        return response;
+    }
+
+    private static Map<String, Object> question(int categoryId, int index){
+        Map<String, Object> question = new LinkedHashMap<>();
+        question.put("type", "multiple");
+        question.put("difficulty", DIFFICULTIES[index % DIFFICULTIES.length]);
+        question.put("category", "Categorie " + categoryId);
+        question.put("question", "Welk antwoord hoort bij &quot;vraag " + categoryId + "-" + index + "&quot;?");
+        question.put("correct_answer", "Antwoord " + index);
+        question.put("incorrect_answers", List.of("Fout " + index + "a", "Fout " + index + "b", "Fout " + index + "c"));
+        return question;
+    }
+}
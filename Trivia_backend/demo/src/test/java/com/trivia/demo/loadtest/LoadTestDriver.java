@@ -0,0 +1,323 @@
+package com.trivia.demo.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.trivia.demo.TriviaOpdrachtApplication;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.management.ThreadInfo;
+import java.lang.management.ThreadMXBean;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Start de applicatie tegen een {@link FakeOpenTriviaServer} en laat N gelijktijdige sessies
+ * {@code /questions} en {@code /checkanswer} aanroepen. Rapporteert throughput, latency-percentielen
+ * en heapgebruik. Applicatie en driver draaien in dezelfde JVM, dus de heapcijfers gelden voor beide.
+ *
+ * <p>Opties (als {@code --naam=waarde}): sessions, duration, warmup, amount, categories,
+ * questions-per-category, latency, rate-limit en outage ({@code true}: de stand-in antwoordt vanaf het
+ * einde van de warmup met HTTP 503). Alle overige argumenten gaan door naar Spring,
+ * bijvoorbeeld {@code --spring.profiles.active=virtual} of {@code --trivia.sessions.store=bounded}.
+ */
+public final class LoadTestDriver {
+    private static final String QUESTIONS = "/questions";
+    private static final String CHECK_ANSWER = "/checkanswer";
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final HttpClient httpClient = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(5))
+            .executor(Executors.newVirtualThreadPerTaskExecutor())
+            .build();
+    private final String baseUrl;
+    private final int amount;
+    private final int categories;
+
+    private LoadTestDriver(String baseUrl, int amount, int categories){
+        this.baseUrl = baseUrl;
+        this.amount = amount;
+        this.categories = categories;
+    }
+
+    public static void main(String[] args) throws Exception{
+        Map<String, String> options = new HashMap<>(Map.of(
+                "sessions", "50",
+                "duration", "30s",
+                "warmup", "5s",
+                "amount", "10",
+                "categories", "24",
+                "questions-per-category", "500",
+                "latency", "50ms",
+                "rate-limit", "0ms",
+                "outage", "false"));
+        List<String> springArgs = new ArrayList<>();
+        for(String arg : args){
+            String option = arg.startsWith("--") ? arg.substring(2) : arg;
+            int separator = option.indexOf('=');
+            if(separator > 0 && options.containsKey(option.substring(0, separator))){
+                options.put(option.substring(0, separator), option.substring(separator + 1));
+            } else {
+                springArgs.add(arg);
+            }
+        }
+
+        int sessions = Integer.parseInt(options.get("sessions"));
+        Duration duration = duration(options.get("duration"));
+        Duration warmup = duration(options.get("warmup"));
+        int categories = Integer.parseInt(options.get("categories"));
+
+        try(FakeOpenTriviaServer upstream = new FakeOpenTriviaServer(categories, Integer.parseInt(options.get("questions-per-category")))
+                .withLatency(duration(options.get("latency")))
+                .withRateLimit(duration(options.get("rate-limit")))){
+            String upstreamUrl = upstream.start();
+            addDefault(springArgs, "server.port", "0");
+            addDefault(springArgs, "logging.level.root", "WARN");
+            addDefault(springArgs, "trivia.upstream.base-url", upstreamUrl);
+            addDefault(springArgs, "trivia.upstream.burst", "20");
+            addDefault(springArgs, "trivia.upstream.refill-period", "10ms");
+            ConfigurableApplicationContext context = new SpringApplicationBuilder(TriviaOpdrachtApplication.class)
+                    .run(springArgs.toArray(String[]::new));
+            try{
+                String port = context.getEnvironment().getProperty("local.server.port");
+                LoadTestDriver driver = new LoadTestDriver("http://localhost:" + port, Integer.parseInt(options.get("amount")), categories);
+                if(Boolean.parseBoolean(options.get("outage"))){
+                    Thread.ofVirtual().start(() -> {
+                        try{
+                            Thread.sleep(warmup.toMillis());
+                            upstream.setOutage(true);
+                        } catch (InterruptedException ex){
+                            Thread.currentThread().interrupt();
+                        }
+                    });
+                }
+                Report report = driver.run(sessions, warmup, duration);
+                report.print(sessions, warmup, duration, upstream.requestCounts());
+            } finally {
+                context.close();
+            }
+        }
+    }
+
+    private Report run(int sessions, Duration warmup, Duration duration) throws InterruptedException{
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        AtomicInteger peakThreads = new AtomicInteger();
+        System.gc();
+        long heapAtStart = memory.getHeapMemoryUsage().getUsed();
+        AtomicLong peakHeap = new AtomicLong(heapAtStart);
+        ScheduledExecutorService sampler = Executors.newSingleThreadScheduledExecutor();
+        sampler.scheduleAtFixedRate(() -> {
+            peakHeap.accumulateAndGet(memory.getHeapMemoryUsage().getUsed(), Math::max);
+            peakThreads.accumulateAndGet(applicationThreads(threads), Math::max);
+        }, 0, 100, TimeUnit.MILLISECONDS);
+
+        long measureFrom = System.nanoTime() + warmup.toNanos();
+        long measureUntil = measureFrom + duration.toNanos();
+        long gcCountBefore = 0;
+        long gcTimeBefore = 0;
+        List<SessionStats> stats = new ArrayList<>();
+        try(ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()){
+            List<Future<SessionStats>> futures = new ArrayList<>();
+            for(int i = 0; i < sessions; i++){
+                String sessionId = "load-" + i;
+                Long categoryId = (long) (9 + i % this.categories);
+                futures.add(executor.submit(() -> this.runSession(sessionId, categoryId, measureFrom, measureUntil)));
+            }
+            Thread.sleep(warmup.toMillis());
+            for(GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()){
+                gcCountBefore += Math.max(0, gc.getCollectionCount());
+                gcTimeBefore += Math.max(0, gc.getCollectionTime());
+            }
+            for(Future<SessionStats> future : futures){
+                try{
+                    stats.add(future.get());
+                } catch (ExecutionException ex){
+                    System.err.println("Sessie afgebroken: " + ex.getCause());
+                }
+            }
+        }
+        sampler.shutdownNow();
+
+        long gcCount = -gcCountBefore;
+        long gcTime = -gcTimeBefore;
+        for(GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()){
+            gcCount += Math.max(0, gc.getCollectionCount());
+            gcTime += Math.max(0, gc.getCollectionTime());
+        }
+        System.gc();
+        long heapAfterGc = memory.getHeapMemoryUsage().getUsed();
+        return new Report(SessionStats.merge(stats), heapAtStart, peakHeap.get(), heapAfterGc, gcCount, gcTime,
+                peakThreads.get());
+    }
+
+    private SessionStats runSession(String sessionId, Long categoryId, long measureFrom, long measureUntil){
+        SessionStats stats = new SessionStats();
+        while(System.nanoTime() < measureUntil){
+            long start = System.nanoTime();
+            JsonNode questions = this.send(HttpRequest.newBuilder(URI.create(this.baseUrl + QUESTIONS + "?amount=" + this.amount + "&categoryId=" + categoryId))
+                    .header("x-sessionId", sessionId)
+                    .GET(), QUESTIONS, start, measureFrom, stats);
+            if(questions == null || !questions.isArray()){
+                continue;
+            }
+            for(JsonNode question : questions){
+                ObjectNode answer = this.objectMapper.createObjectNode();
+                answer.set("question_id", question.get("id"));
+                answer.set("question", question.get("question"));
+                answer.set("chosen_answer", question.path("answers").path(0));
+                answer.set("answer_token", question.get("answer_token"));
+                this.send(HttpRequest.newBuilder(URI.create(this.baseUrl + CHECK_ANSWER))
+                        .header("x-sessionId", sessionId)
+                        .header("Content-Type", "application/json")
+                        .POST(HttpRequest.BodyPublishers.ofString(answer.toString())), CHECK_ANSWER, System.nanoTime(), measureFrom, stats);
+            }
+        }
+        return stats;
+    }
+
+    private JsonNode send(HttpRequest.Builder request, String endpoint, long start, long measureFrom, SessionStats stats){
+        boolean ok = false;
+        JsonNode body = null;
+        try{
+            HttpResponse<String> response = this.httpClient.send(request.timeout(Duration.ofSeconds(30)).build(),
+                    HttpResponse.BodyHandlers.ofString());
+            ok = response.statusCode() == 200;
+            if(ok){
+                body = this.objectMapper.readTree(response.body());
+            }
+        } catch (Exception ex){
+            if(ex instanceof InterruptedException){
+                Thread.currentThread().interrupt();
+            }
+        }
+        if(start >= measureFrom){
+            stats.record(endpoint, System.nanoTime() - start, ok);
+        }
+        return body;
+    }
+
+    /**
+     * Telt de platform threads zonder die van de opentdb stand-in, die per verbinding een thread gebruikt.
+     */
+    private static int applicationThreads(ThreadMXBean threads){
+        int count = 0;
+        for(ThreadInfo info : threads.getThreadInfo(threads.getAllThreadIds(), 0)){
+            if(info != null && !info.getThreadName().startsWith("MockWebServer")){
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Command line argumenten gaan voor application.properties, dus de defaults van de loadtest worden
+     * als argument toegevoegd als de gebruiker ze niet zelf meegeeft.
+     */
+    private static void addDefault(List<String> springArgs, String name, String value){
+        if(springArgs.stream().noneMatch(arg -> arg.startsWith("--" + name + "="))){
+            springArgs.add("--" + name + "=" + value);
+        }
+    }
+
+    private static Duration duration(String value){
+        String trimmed = value.trim().toLowerCase(Locale.ROOT);
+        if(trimmed.endsWith("ms")){
+            return Duration.ofMillis(Long.parseLong(trimmed.substring(0, trimmed.length() - 2)));
+        }
+        if(trimmed.endsWith("s")){
+            return Duration.ofSeconds(Long.parseLong(trimmed.substring(0, trimmed.length() - 1)));
+        }
+        if(trimmed.endsWith("m")){
+            return Duration.ofMinutes(Long.parseLong(trimmed.substring(0, trimmed.length() - 1)));
+        }
+        return Duration.ofSeconds(Long.parseLong(trimmed));
+    }
+
+    private static final class SessionStats {
+        private final Map<String, Latencies> byEndpoint = new TreeMap<>();
+
+        private void record(String endpoint, long nanos, boolean ok){
+            this.byEndpoint.computeIfAbsent(endpoint, e -> new Latencies()).record(nanos, ok);
+        }
+
+        private static SessionStats merge(List<SessionStats> all){
+            SessionStats merged = new SessionStats();
+            for(SessionStats stats : all){
+                stats.byEndpoint.forEach((endpoint, latencies) ->
+                        merged.byEndpoint.computeIfAbsent(endpoint, e -> new Latencies()).addAll(latencies));
+            }
+            return merged;
+        }
+    }
+
+    private static final class Latencies {
+        private long[] nanos = new long[1024];
+        private int size;
+        private long errors;
+
+        private void record(long value, boolean ok){
+            if(!ok){
+                this.errors++;
+            }
+            if(this.size == this.nanos.length){
+                this.nanos = Arrays.copyOf(this.nanos, this.size * 2);
+            }
+            this.nanos[this.size++] = value;
+        }
+
+        private void addAll(Latencies other){
+            if(this.size + other.size > this.nanos.length){
+                this.nanos = Arrays.copyOf(this.nanos, Math.max(this.nanos.length * 2, this.size + other.size));
+            }
+            System.arraycopy(other.nanos, 0, this.nanos, this.size, other.size);
+            this.size += other.size;
+            this.errors += other.errors;
+        }
+
+        private double percentileMillis(long[] sorted, double percentile){
+            if(sorted.length == 0){
+                return 0;
+            }
+            int index = (int) Math.ceil(percentile * sorted.length) - 1;
+            return sorted[Math.max(0, Math.min(sorted.length - 1, index))] / 1_000_000.0;
+        }
+    }
+
+    private record Report(SessionStats stats, long heapAtStart, long peakHeap, long heapAfterGc, long gcCount, long gcTimeMillis,
+                          int peakPlatformThreads) {
+
+        private void print(int sessions, Duration warmup, Duration duration, Map<String, Long> upstreamCalls){
+            double seconds = duration.toNanos() / 1_000_000_000.0;
+            System.out.printf("%nLoadtest: %d sessies, %ds meten na %ds warmup%n", sessions, duration.toSeconds(), warmup.toSeconds());
+            System.out.printf("%-14s %10s %8s %10s %9s %9s %9s %9s%n", "endpoint", "requests", "errors", "req/s", "p50 ms", "p95 ms", "p99 ms", "max ms");
+            long total = 0;
+            for(Map.Entry<String, Latencies> entry : this.stats.byEndpoint.entrySet()){
+                Latencies latencies = entry.getValue();
+                long[] sorted = Arrays.copyOf(latencies.nanos, latencies.size);
+                Arrays.sort(sorted);
+                total += latencies.size;
+                System.out.printf("%-14s %10d %8d %10.1f %9.2f %9.2f %9.2f %9.2f%n", entry.getKey(), latencies.size, latencies.errors,
+                        latencies.size / seconds, latencies.percentileMillis(sorted, 0.50), latencies.percentileMillis(sorted, 0.95),
+                        latencies.percentileMillis(sorted, 0.99), latencies.percentileMillis(sorted, 1.0));
+            }
+            System.out.printf("Totaal: %.1f req/s%n", total / seconds);
+            System.out.printf("Heap: %d MB na opstarten, %d MB piek, %d MB na GC; %d GC's, %d ms GC-tijd%n",
+                    this.heapAtStart >> 20, this.peakHeap >> 20, this.heapAfterGc >> 20, this.gcCount, this.gcTimeMillis);
+            System.out.printf("Platform threads (zonder stand-in): %d piek%n", this.peakPlatformThreads);
+            System.out.printf("Upstream calls: %s%n", upstreamCalls);
+        }
+    }
+}
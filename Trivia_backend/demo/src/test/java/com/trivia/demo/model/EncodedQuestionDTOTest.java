@@ -0,0 +1,48 @@
+package com.trivia.demo.model;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class EncodedQuestionDTOTest {
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void testSerialize_writesSameJsonAsQuestionDTO() throws Exception {
+        //Arrange
+        Question question = new Question();
+        question.setId(7);
+        question.setType("multiple");
+        question.setDifficulty("easy");
+        question.setCategory("Boeken");
+        question.setQuestion("Wie schreef \"Max Havelaar\" – en waarom?");
+        question.setCorrect_answer("Multatuli");
+        question.setIncorrect_answers(List.of("Vondel", "Hooft \\ Bredero", "Mulisch"));
+        QuestionDTO expected = new QuestionDTO(question);
+        EncodedQuestionDTO encoded = new EncodedQuestionDTO(question);
+        encoded.setAnswer_token("token");
+        expected.setAnswer_token("token");
+
+        //Act
+        JsonNode actualJson = this.objectMapper.readTree(this.objectMapper.writeValueAsBytes(List.of(encoded))).get(0);
+        JsonNode expectedJson = this.objectMapper.readTree(this.objectMapper.writeValueAsString(expected));
+
+        //Assert
+        List<String> fieldNames = new ArrayList<>();
+        actualJson.fieldNames().forEachRemaining(fieldNames::add);
+        List<String> expectedFieldNames = new ArrayList<>();
+        expectedJson.fieldNames().forEachRemaining(expectedFieldNames::add);
+        assertEquals(expectedFieldNames, fieldNames);
+        assertEquals(expectedJson.get("question"), actualJson.get("question"));
+        assertEquals(7, actualJson.get("id").asInt());
+        List<String> answers = new ArrayList<>();
+        actualJson.get("answers").forEach(answer -> answers.add(answer.asText()));
+        assertEquals(encoded.getAnswers(), answers);
+        assertEquals(List.of("Hooft \\ Bredero", "Mulisch", "Multatuli", "Vondel"), answers.stream().sorted().toList());
+    }
+}
@@ -0,0 +1,57 @@
+package com.trivia.demo.service;
+
+import com.trivia.demo.config.TriviaProperties;
+import com.trivia.demo.exception.InvalidRequestException;
+import com.trivia.demo.model.Question;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AnswerTokenSignerTest {
+
+    private Question question;
+
+    @BeforeEach
+    void setUp() {
+        this.question = new Question();
+        this.question.setQuestion("Welke planeet zit het dichtst bij de zon?");
+        this.question.setCorrect_answer("Mercurius");
+        this.question.setIncorrect_answers(List.of("Mars", "Venus", "Aarde"));
+    }
+
+    @Test
+    void testVerify_tokenFromOtherNodeWithSameSecret_checksAnswer(){
+        //Arrange
+        String token = signer("geheim").sign(this.question);
+        AnswerTokenSigner otherNode = signer("geheim");
+
+        //Act
+        //Assert
+        assertTrue(otherNode.verify(token, this.question.getQuestion(), "mercurius"));
+        assertFalse(otherNode.verify(token, this.question.getQuestion(), "Mars"));
+    }
+
+    @Test
+    void testVerify_tamperedOrForeignToken_throwsInvalidRequestException(){
+        //Arrange
+        String token = signer("geheim").sign(this.question);
+        char last = token.charAt(token.length() - 1);
+        String tampered = token.substring(0, token.length() - 1) + (last == 'A' ? 'B' : 'A');
+
+        //Act
+        //Assert
+        assertThrows(InvalidRequestException.class, () -> signer("geheim").verify(tampered, null, "Mercurius"));
+        assertThrows(InvalidRequestException.class, () -> signer("ander geheim").verify(token, null, "Mercurius"));
+        assertThrows(InvalidRequestException.class, () -> signer("geheim").verify(token, "Een andere vraag?", "Mercurius"));
+    }
+
+    private static AnswerTokenSigner signer(String secret){
+        TriviaProperties properties = new TriviaProperties();
+        properties.getAnswerToken().setEnabled(true);
+        properties.getAnswerToken().setSecret(secret);
+        return new AnswerTokenSigner(properties);
+    }
+}
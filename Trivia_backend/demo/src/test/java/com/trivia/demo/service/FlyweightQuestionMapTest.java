@@ -0,0 +1,81 @@
+package com.trivia.demo.service;
+
+import com.trivia.demo.model.Question;
+import com.trivia.demo.store.QuestionStore;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class FlyweightQuestionMapTest {
+
+    private QuestionStore questionStore;
+    private FlyweightQuestionMap questionMap;
+
+    @BeforeEach
+    void setUp() {
+        this.questionStore = new QuestionStore();
+        this.questionMap = new FlyweightQuestionMap(this.questionStore, 100, 3, Duration.ofMinutes(30), null);
+    }
+
+    @Test
+    void testAddQuestion_sameQuestionForManySessions_storedOnce(){
+        //Arrange
+        //Act
+        for(int i = 0; i < 50; i++){
+            this.questionMap.addQuestion("sessie" + i, question("Hoeveel is 50 + 50?"));
+        }
+
+        //Assert
+        assertEquals(1, this.questionStore.size());
+        assertEquals(50, this.questionMap.sessionCount());
+        assertEquals("100", this.questionMap.getQuestionsForSession("sessie7").get("Hoeveel is 50 + 50?").getCorrect_answer());
+        assertEquals("100", this.questionMap.getQuestionsByIdForSession("sessie7").get(0).getCorrect_answer());
+    }
+
+    @Test
+    void testGetQuestionsByIdForSession_questionOfOtherSession_returnsNull(){
+        //Arrange
+        Question question = question("Is banaan een fruitsoort?");
+        this.questionMap.addQuestion("sessie1", question);
+        this.questionMap.addQuestion("sessie2", question("Bevindt Nederland zich in Europa?"));
+
+        //Act
+        //Assert
+        assertNull(this.questionMap.getQuestionsByIdForSession("sessie2").get(question.getId()));
+        assertNull(this.questionMap.getQuestionsForSession("sessie2").get("Is banaan een fruitsoort?"));
+        assertTrue(this.questionMap.getQuestionsForSession("onbekend").isEmpty());
+    }
+
+    @Test
+    void testQuestionCount_followsAddsRingLimitAndEviction() throws InterruptedException{
+        //Arrange
+        FlyweightQuestionMap expiring = new FlyweightQuestionMap(this.questionStore, 100, 3, Duration.ofMillis(20), null);
+
+        //Act
+        for(int i = 0; i < 5; i++){
+            expiring.addQuestion("sessie1", question("Vraag " + i));
+        }
+        expiring.addQuestion("sessie1", question("Vraag 4"));
+        expiring.addQuestion("sessie2", question("Vraag 0"));
+        long beforeExpiry = expiring.questionCount();
+        Thread.sleep(50);
+        expiring.getQuestionsForSession("sessie1");
+        expiring.getQuestionsForSession("sessie2");
+
+        //Assert
+        assertEquals(4, beforeExpiry);
+        assertEquals(0, expiring.questionCount());
+    }
+
+    private static Question question(String text){
+        Question question = new Question();
+        question.setQuestion(text);
+        question.setCorrect_answer("100");
+        question.setIncorrect_answers(List.of("50"));
+        return question;
+    }
+}
@@ -0,0 +1,47 @@
+package com.trivia.demo.service;
+
+import org.apache.commons.text.StringEscapeUtils;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class HtmlEntityDecoderTest {
+
+    @Test
+    void testDecode_noAmpersand_returnsSameInstance(){
+        //Arrange
+        String input = "Welke planeet zit het dichtst bij de zon?";
+
+        //Act
+        String result = HtmlEntityDecoder.decode(input);
+
+        //Assert
+        assertSame(input, result);
+    }
+
+    @Test
+    void testDecode_opentdbAndEdgeCases_matchesCommonsText(){
+        //Arrange
+        List<String> inputs = List.of(
+                "In &quot;The Lord of the Rings&quot;, who is Frodo&#039;s gardener?",
+                "Pok&eacute;mon &amp; Mot&ouml;rhead &ndash; 100&deg; &hellip;",
+                "&#x41;&#X42;&#67; &#128512; &#0000065;",
+                "Tom & Jerry; geen entity",
+                "A&B, &;, &#;, &#x;, &#12a;, &amp",
+                "Onbekend: &foo; en bekend: &Auml;",
+                "HTML4 buiten de tabel: &alpha; &thetasym;",
+                "&amp;amp; &#1114111;",
+                "eindigt op &");
+
+        for(String input : inputs){
+            //Act
+            String result = HtmlEntityDecoder.decode(input);
+
+            //Assert
+            assertEquals(StringEscapeUtils.unescapeHtml4(input), result, input);
+        }
+        assertEquals("&#1114112;", HtmlEntityDecoder.decode("&#1114112;"));
+    }
+}
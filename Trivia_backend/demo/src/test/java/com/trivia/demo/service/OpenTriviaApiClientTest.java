@@ -0,0 +1,121 @@
+package com.trivia.demo.service;
+
+import com.trivia.demo.config.TriviaProperties;
+import com.trivia.demo.exception.UpstreamUnavailableException;
+import com.trivia.demo.loadtest.FakeOpenTriviaServer;
+import com.trivia.demo.model.TriviaQuestionsResponse;
+import com.trivia.demo.upstream.UpstreamScheduler;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.io.IOException;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class OpenTriviaApiClientTest {
+
+    private FakeOpenTriviaServer server;
+    private String baseUrl;
+    private UpstreamScheduler scheduler;
+    private SimpleMeterRegistry meterRegistry;
+    private OpenTriviaApiClient apiClient;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        this.server = new FakeOpenTriviaServer(2, 10);
+        TriviaProperties properties = new TriviaProperties();
+        this.baseUrl = this.server.start();
+        properties.getUpstream().setBaseUrl(this.baseUrl);
+        properties.getUpstream().setBurst(10);
+        properties.getUpstream().setRefillPeriod(Duration.ofMillis(10));
+        properties.getUpstream().setCircuitFailureThreshold(2);
+        this.scheduler = new UpstreamScheduler(properties);
+        this.meterRegistry = new SimpleMeterRegistry();
+        this.apiClient = new OpenTriviaApiClient(this.scheduler, this.meterRegistry, properties);
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        this.scheduler.shutdown();
+        this.server.close();
+    }
+
+    @Test
+    void testGetQuestions_tokenSeenAllQuestions_returnsResponseCode4(){
+        //Arrange
+        String token = this.apiClient.requestNewToken().block(Duration.ofSeconds(5));
+
+        //Act
+        TriviaQuestionsResponse first = this.apiClient.getQuestions(10, 9L, token).block(Duration.ofSeconds(5));
+        TriviaQuestionsResponse second = this.apiClient.getQuestions(5, 9L, token).block(Duration.ofSeconds(5));
+
+        //Assert
+        assertNotNull(token);
+        assertEquals(0, first.getResponse_code());
+        assertEquals(10, first.getResults().size());
+        assertEquals(4, second.getResponse_code());
+        assertEquals(1.0, this.meterRegistry.get("trivia.upstream.response.codes").tag("code", "4").counter().count());
+        assertEquals(2, this.meterRegistry.get("trivia.upstream.requests")
+                .tags("method", "questions", "outcome", "success").timer().count());
+    }
+
+    @Test
+    void testGetTotalAmountOfQuestionsForCategory_knownCategory_returnsCount(){
+        //Act
+        Integer total = this.apiClient.getTotalAmountOfQuestionsForCategory(10L).block(Duration.ofSeconds(5));
+
+        //Assert
+        assertEquals(10, total);
+    }
+
+    @Test
+    void testGetQuestions_failedMergedCall_countsAsSingleCircuitFailure() throws InterruptedException{
+        //Arrange
+        TriviaProperties properties = new TriviaProperties();
+        properties.getUpstream().setBaseUrl(this.baseUrl);
+        properties.getUpstream().setBurst(1);
+        properties.getUpstream().setRefillPeriod(Duration.ofMillis(300));
+        properties.getUpstream().setCircuitFailureThreshold(2);
+        UpstreamScheduler scheduler = new UpstreamScheduler(properties);
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        OpenTriviaApiClient apiClient = new OpenTriviaApiClient(scheduler, meterRegistry, properties);
+        apiClient.getTotalAmountOfQuestionsForCategory(10L).block(Duration.ofSeconds(5));
+        this.server.setOutage(true);
+
+        //Act
+        for(int i = 0; i < 5; i++){
+            apiClient.getQuestions(2, 9L, null).subscribe(response -> {}, ex -> {});
+        }
+        while(this.server.requestCounts().getOrDefault("/api.php", 0L) == 0){
+            Thread.sleep(10);
+        }
+        Thread.sleep(200);
+
+        //Assert
+        assertEquals(1, this.server.requestCounts().get("/api.php"));
+        assertEquals(0.0, meterRegistry.get("trivia.upstream.circuit.state").tag("method", "questions").gauge().value());
+        scheduler.shutdown();
+    }
+
+    @Test
+    void testGetCategories_upstreamOutage_opensCircuitAndFailsFast(){
+        //Arrange
+        this.server.setOutage(true);
+        this.apiClient.getCategories().onErrorResume(ex -> Mono.empty()).block(Duration.ofSeconds(10));
+
+        //Act
+        long start = System.nanoTime();
+        StepVerifier.create(this.apiClient.getCategories()).expectError(UpstreamUnavailableException.class).verify(Duration.ofSeconds(5));
+        long failFastMillis = Duration.ofNanos(System.nanoTime() - start).toMillis();
+
+        //Assert
+        assertTrue(failFastMillis < 500, "fail-fast duurde " + failFastMillis + " ms");
+        assertEquals(2, this.server.requestCounts().get("/api_category.php"));
+        assertEquals(2.0, this.meterRegistry.get("trivia.upstream.circuit.state").tag("method", "categories").gauge().value());
+    }
+}
@@ -0,0 +1,106 @@
+package com.trivia.demo.service;
+
+import com.trivia.demo.config.TriviaProperties;
+import com.trivia.demo.model.Question;
+import com.trivia.demo.store.QuestionBank;
+import com.trivia.demo.store.QuestionIndex;
+import com.trivia.demo.store.QuestionStore;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class QuestionImporterTest {
+
+    @Mock
+    private OpenTriviaApiClient apiClient;
+    private QuestionStore questionStore;
+    private QuestionPool questionPool;
+    private QuestionImporter importer;
+
+    @TempDir
+    Path directory;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        TriviaProperties properties = new TriviaProperties();
+        properties.getBulkImport().setBatchSize(2);
+        properties.getBulkImport().setParallelism(2);
+        this.questionStore = new QuestionStore();
+        QuestionIndex questionIndex = new QuestionIndex(this.questionStore);
+        this.questionPool = new QuestionPool(this.apiClient, new QuestionBank(properties), questionIndex, properties);
+        this.importer = new QuestionImporter(this.questionStore, new QuestionBank(properties), this.questionPool, questionIndex, properties);
+    }
+
+    @Test
+    void testImportFile_questionsResponse_decodesAndIndexesPerCategory() throws IOException {
+        //Arrange
+        Path file = this.directory.resolve("dump.json");
+        Files.writeString(file, """
+                {"response_code":0,"results":[
+                  {"type":"multiple","difficulty":"easy","category":"Geschiedenis","question":"Wie was Willem &amp; Mary?",
+                   "correct_answer":"Koningen","incorrect_answers":["Boeren","Ridders","Monniken"],"extra":{"genegeerd":true}},
+                  {"type":"boolean","difficulty":"hard","category":"Sport","question":"Is voetbal een sport?",
+                   "correct_answer":"True","incorrect_answers":["False"]},
+                  {"type":"boolean","difficulty":"hard","category":"Sport","question":"Is schaken een sport?",
+                   "correct_answer":"True","incorrect_answers":["False"]}
+                ]}""");
+
+        //Act
+        QuestionImporter.ImportResult result = this.importer.importFile(file, Map.of("Geschiedenis", 23L, "Sport", 21L)::get);
+
+        //Assert
+        assertEquals(3, result.questions());
+        assertEquals(3, result.newQuestions());
+        assertTrue(this.questionStore.idOf("Wie was Willem & Mary?") >= 0);
+        assertEquals(1, this.questionPool.size(23L));
+        assertEquals(2, this.questionPool.size(21L));
+        Question imported = this.questionStore.get(this.questionStore.idOf("Wie was Willem & Mary?"));
+        assertEquals(List.of("Boeren", "Ridders", "Monniken"), imported.getIncorrect_answers());
+    }
+
+    @Test
+    void testImportFile_htmlEncodedCategoryName_resolvesDecodedName() throws IOException {
+        //Arrange
+        Path file = this.directory.resolve("encoded.ndjson");
+        Files.writeString(file, """
+                {"type":"boolean","difficulty":"easy","category":"Science &amp; Nature","question":"Is water nat?","correct_answer":"True","incorrect_answers":["False"]}
+                """);
+
+        //Act
+        this.importer.importFile(file, Map.of("Science & Nature", 17L)::get);
+
+        //Assert
+        assertEquals(1, this.questionPool.size(17L));
+        assertEquals(0, this.questionPool.size(null));
+    }
+
+    @Test
+    void testImportFile_ndjsonWithDuplicates_countsOnlyNewQuestions() throws IOException {
+        //Arrange
+        Path file = this.directory.resolve("dump.ndjson");
+        Files.writeString(file, """
+                {"type":"boolean","difficulty":"easy","category":"Sport","question":"Vraag 1","correct_answer":"True","incorrect_answers":["False"]}
+                {"type":"boolean","difficulty":"easy","category":"Sport","question":"Vraag 2","correct_answer":"True","incorrect_answers":["False"]}
+                {"type":"boolean","difficulty":"easy","category":"Sport","question":"Vraag 1","correct_answer":"True","incorrect_answers":["False"]}
+                """);
+
+        //Act
+        QuestionImporter.ImportResult result = this.importer.importFile(file, name -> null);
+
+        //Assert
+        assertEquals(3, result.questions());
+        assertEquals(2, result.newQuestions());
+        assertEquals(2, this.questionPool.size(null));
+    }
+}
@@ -0,0 +1,109 @@
+package com.trivia.demo.service;
+
+import com.trivia.demo.config.TriviaProperties;
+import com.trivia.demo.model.Question;
+import com.trivia.demo.model.TriviaQuestionsResponse;
+import com.trivia.demo.store.QuestionBank;
+import com.trivia.demo.store.QuestionIndex;
+import com.trivia.demo.store.QuestionStore;
+import com.trivia.demo.upstream.UpstreamScheduler;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import reactor.core.publisher.Mono;
+
+import java.nio.file.Path;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+public class QuestionPoolTest {
+
+    @Mock
+    private OpenTriviaApiClient apiClient;
+    private QuestionPool questionPool;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        TriviaProperties properties = new TriviaProperties();
+        properties.getPool().setLowWaterMark(2);
+        properties.getPool().setBatchSize(3);
+        this.questionPool = new QuestionPool(this.apiClient, new QuestionBank(properties), new QuestionIndex(new QuestionStore()), properties);
+    }
+
+    @Test
+    void testTake_warmPool_servesDecodedQuestionsWithoutUpstreamCall(){
+        //Arrange
+        when(this.apiClient.getQuestions(eq(3), eq(1L), isNull(), eq(UpstreamScheduler.Priority.BACKGROUND)))
+                .thenReturn(Mono.just(response("Wat is 1 &amp; 1?", "Wat is 2 + 2?", "Wat is 3 + 3?")))
+                .thenReturn(Mono.just(new TriviaQuestionsResponse(1, Collections.emptyList())));
+        this.questionPool.register(1L, 10);
+        clearInvocations(this.apiClient);
+
+        //Act
+        List<Question> taken = this.questionPool.take(1L, 1, q -> true);
+
+        //Assert
+        assertEquals(1, taken.size());
+        assertEquals("Wat is 1 & 1?", taken.getFirst().getQuestion());
+        assertEquals(2, this.questionPool.size(1L));
+        verify(this.apiClient, never()).getQuestions(anyInt(), any(), any(), any());
+    }
+
+    @Test
+    void testTake_notEnoughAcceptedQuestions_returnsEmptyAndKeepsPool(){
+        //Arrange
+        when(this.apiClient.getQuestions(eq(3), eq(1L), isNull(), eq(UpstreamScheduler.Priority.BACKGROUND)))
+                .thenReturn(Mono.just(response("Vraag 1", "Vraag 2", "Vraag 3")))
+                .thenReturn(Mono.just(new TriviaQuestionsResponse(1, Collections.emptyList())));
+        this.questionPool.register(1L, 10);
+
+        //Act
+        List<Question> taken = this.questionPool.take(1L, 2, q -> !q.getQuestion().equals("Vraag 1")
+                && !q.getQuestion().equals("Vraag 2"));
+
+        //Assert
+        assertTrue(taken.isEmpty());
+        assertEquals(3, this.questionPool.size(1L));
+    }
+
+    @Test
+    void testWarmStart_questionsInBank_servedWithoutUpstreamCall(@TempDir Path directory){
+        //Arrange
+        TriviaProperties properties = new TriviaProperties();
+        properties.getPool().setLowWaterMark(1);
+        properties.getPool().setCapacity(2);
+        properties.getBank().setEnabled(true);
+        properties.getBank().setPath(directory.resolve("bank.bin").toString());
+        QuestionBank bank = new QuestionBank(properties);
+        bank.append(1L, response("Wat is 1 &amp; 1?", "Wat is 2 + 2?", "Wat is 3 + 3?").getResults());
+        bank.close();
+        QuestionPool restarted = new QuestionPool(this.apiClient, new QuestionBank(properties), new QuestionIndex(new QuestionStore()), properties);
+
+        //Act
+        restarted.warmStart();
+        List<Question> taken = restarted.take(1L, 2, q -> true);
+
+        //Assert
+        assertEquals(List.of("Wat is 1 & 1?", "Wat is 2 + 2?"), taken.stream().map(Question::getQuestion).toList());
+        assertEquals(1, restarted.size(1L));
+        verify(this.apiClient, never()).getQuestions(anyInt(), any(), any(), any());
+    }
+
+    private static TriviaQuestionsResponse response(String... questionTexts){
+        List<Question> questions = new ArrayList<>();
+        for(String text : questionTexts){
+            Question question = new Question();
+            question.setQuestion(text);
+            question.setCorrect_answer("Ja");
+            question.setIncorrect_answers(List.of("Nee"));
+            questions.add(question);
+        }
+        return new TriviaQuestionsResponse(0, questions);
+    }
+}
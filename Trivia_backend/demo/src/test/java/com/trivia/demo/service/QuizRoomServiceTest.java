@@ -0,0 +1,158 @@
+package com.trivia.demo.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.trivia.demo.config.TriviaProperties;
+import com.trivia.demo.exception.InvalidRequestException;
+import com.trivia.demo.exception.RoomNotFoundException;
+import com.trivia.demo.model.*;
+import com.trivia.demo.store.ScoreBoard;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.http.codec.ServerSentEvent;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+public class QuizRoomServiceTest {
+
+    @Mock
+    private TriviaQuestionService triviaQuestionService;
+    private ScoreBoard scoreBoard;
+    private QuizRoomService quizRoomService;
+
+    @BeforeEach
+    void setUp(){
+        MockitoAnnotations.openMocks(this);
+        TriviaProperties properties = new TriviaProperties();
+        this.scoreBoard = new ScoreBoard(properties);
+        this.quizRoomService = new QuizRoomService(this.triviaQuestionService, this.scoreBoard, new ObjectMapper(), properties);
+    }
+
+    @Test
+    void testRoom_questionsFetchedOnceAndPushedToEverySubscriber(){
+        //Arrange
+        when(this.triviaQuestionService.getRoomQuestions(2, 9L)).thenReturn(Mono.just(questions(2)));
+        RoomDTO room = this.quizRoomService.createRoom(2, 9L).block();
+        List<ServerSentEvent<String>> first = new ArrayList<>();
+        List<ServerSentEvent<String>> second = new ArrayList<>();
+        this.quizRoomService.events(room.getId()).subscribe(first::add);
+        this.quizRoomService.events(room.getId()).subscribe(second::add);
+
+        //Act
+        this.quizRoomService.next(room.getId(), room.getHost_key());
+        List<ServerSentEvent<String>> late = new ArrayList<>();
+        this.quizRoomService.events(room.getId()).subscribe(late::add);
+        this.quizRoomService.next(room.getId(), room.getHost_key());
+
+        //Assert
+        verify(this.triviaQuestionService, times(1)).getRoomQuestions(anyInt(), any());
+        verify(this.triviaQuestionService, never()).getQuestions(anyInt(), any(), anyString());
+        assertEquals(List.of("question", "results", "question"), first.stream().map(ServerSentEvent::event).toList());
+        assertEquals(first.stream().map(ServerSentEvent::data).toList(), second.stream().map(ServerSentEvent::data).toList());
+        assertSame(first.getFirst().data(), second.getFirst().data());
+        assertTrue(late.getFirst().data().contains("Vraag 0"));
+        assertEquals(3, late.size());
+        assertEquals(3, this.quizRoomService.getRoom(room.getId()).getPlayers());
+    }
+
+    @Test
+    void testAnswer_concurrentPlayers_areCountedOncePerPlayer() throws InterruptedException{
+        //Arrange
+        when(this.triviaQuestionService.getRoomQuestions(1, null)).thenReturn(Mono.just(questions(1)));
+        RoomDTO room = this.quizRoomService.createRoom(1, null).block();
+        this.quizRoomService.next(room.getId(), room.getHost_key());
+        int players = 2000;
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+
+        //Act
+        for(int i = 0; i < players; i++){
+            String player = "speler" + i;
+            String answer = i % 4 == 0 ? "Ja" : "Nee";
+            executor.execute(() -> this.quizRoomService.answer(room.getId(), player, answer(0, answer)));
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+
+        //Assert
+        RoomResultsDTO results = this.quizRoomService.results(room.getId(), 0);
+        assertEquals(players, results.getAnswered());
+        assertEquals(players / 4, results.getCorrect());
+        assertEquals(players / 4, results.getAnswers().get("Ja"));
+        assertEquals(players * 3 / 4, results.getAnswers().get("Nee"));
+        assertEquals(1, this.scoreBoard.score("speler0").getCorrect());
+        assertThrows(InvalidRequestException.class, () -> this.quizRoomService.answer(room.getId(), "speler0", answer(0, "Ja")));
+    }
+
+    @Test
+    void testAnswer_forPreviousOrUnnamedQuestion_isRejected(){
+        //Arrange
+        when(this.triviaQuestionService.getRoomQuestions(2, null)).thenReturn(Mono.just(questions(2)));
+        RoomDTO room = this.quizRoomService.createRoom(2, null).block();
+        this.quizRoomService.next(room.getId(), room.getHost_key());
+        this.quizRoomService.next(room.getId(), room.getHost_key());
+        AnswerDTO unnamed = new AnswerDTO();
+        unnamed.setChosen_answer("Ja");
+
+        //Act + Assert
+        assertThrows(InvalidRequestException.class, () -> this.quizRoomService.answer(room.getId(), "speler", answer(0, "Ja")));
+        assertThrows(InvalidRequestException.class, () -> this.quizRoomService.answer(room.getId(), "speler", unnamed));
+        assertTrue(this.quizRoomService.answer(room.getId(), "speler", answer(1, "Ja")).isCorrect());
+        assertEquals(0, this.quizRoomService.results(room.getId(), 0).getAnswered());
+        assertEquals(1, this.scoreBoard.score("speler").getAnswered());
+    }
+
+    @Test
+    void testNext_afterLastQuestion_finishesRoomAndCompletesStream(){
+        //Arrange
+        when(this.triviaQuestionService.getRoomQuestions(1, null)).thenReturn(Mono.just(questions(1)));
+        RoomDTO room = this.quizRoomService.createRoom(1, null).block();
+        this.quizRoomService.next(room.getId(), room.getHost_key());
+
+        //Act
+        RoomDTO finished = this.quizRoomService.next(room.getId(), room.getHost_key());
+
+        //Assert
+        assertTrue(finished.isFinished());
+        StepVerifier.create(this.quizRoomService.events(room.getId()))
+                .assertNext(event -> assertEquals("finished", event.event()))
+                .verifyComplete();
+        assertThrows(InvalidRequestException.class, () -> this.quizRoomService.next(room.getId(), "geenHost"));
+        assertThrows(RoomNotFoundException.class, () -> this.quizRoomService.getRoom("onbekend"));
+    }
+
+    private static AnswerDTO answer(int questionId, String chosen){
+        AnswerDTO answerDTO = new AnswerDTO();
+        answerDTO.setQuestion_id(questionId);
+        answerDTO.setChosen_answer(chosen);
+        return answerDTO;
+    }
+
+    private static List<Question> questions(int amount){
+        List<Question> questions = new ArrayList<>();
+        for(int i = 0; i < amount; i++){
+            questions.add(question(i));
+        }
+        return questions;
+    }
+
+    private static Question question(int id){
+        Question question = new Question();
+        question.setId(id);
+        question.setQuestion("Vraag " + id);
+        question.setCorrect_answer("Ja");
+        question.setIncorrect_answers(Arrays.asList("Nee"));
+        return question;
+    }
+}
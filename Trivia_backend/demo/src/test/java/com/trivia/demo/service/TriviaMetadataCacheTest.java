@@ -0,0 +1,36 @@
+package com.trivia.demo.service;
+
+import com.trivia.demo.config.TriviaProperties;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.*;
+
+public class TriviaMetadataCacheTest {
+
+    @Mock
+    private OpenTriviaApiClient apiClient;
+    private TriviaMetadataCache metadataCache;
+
+    @BeforeEach
+    void setUp(){
+        MockitoAnnotations.openMocks(this);
+        this.metadataCache = new TriviaMetadataCache(this.apiClient, new TriviaProperties());
+    }
+
+    @Test
+    void testGetTotalAmountOfQuestionsForCategory_withoutCategory_isCached(){
+        //Arrange
+        when(this.apiClient.getTotalAmountOfQuestionsForCategory(isNull())).thenReturn(Mono.just(4000));
+
+        //Act + Assert
+        StepVerifier.create(this.metadataCache.getTotalAmountOfQuestionsForCategory(null)).expectNext(4000).verifyComplete();
+        StepVerifier.create(this.metadataCache.getTotalAmountOfQuestionsForCategory(null)).expectNext(4000).verifyComplete();
+        verify(this.apiClient, times(1)).getTotalAmountOfQuestionsForCategory(isNull());
+    }
+}
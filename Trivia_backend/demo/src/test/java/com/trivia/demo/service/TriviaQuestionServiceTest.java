@@ -1,15 +1,25 @@
 package com.trivia.demo.service;
 
+import com.trivia.demo.config.TriviaProperties;
 import com.trivia.demo.exception.CategoryNotFoundException;
 import com.trivia.demo.exception.InvalidRequestException;
+import com.trivia.demo.exception.NotEnoughQuestionsException;
 import com.trivia.demo.exception.QuestionNotFoundException;
+import com.trivia.demo.exception.UpstreamUnavailableException;
 import com.trivia.demo.intefaces.IQuestionMap;
 import com.trivia.demo.model.*;
+import com.trivia.demo.store.QuestionBank;
+import com.trivia.demo.store.QuestionIndex;
+import com.trivia.demo.store.QuestionStore;
+import com.trivia.demo.store.ScoreBoard;
+import com.trivia.demo.store.SeenQuestions;
+import com.trivia.demo.upstream.AdmissionController;
+import com.trivia.demo.upstream.UpstreamScheduler;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 import reactor.test.StepVerifier;
 
@@ -27,14 +37,24 @@ public class TriviaQuestionServiceTest {
     private TriviaSessionService sessionService;
     @Mock
     private IQuestionMap questionMap;
-    @InjectMocks
+    @Mock
+    private QuestionPool questionPool;
+    private QuestionIndex questionIndex;
+    private SeenQuestions seenQuestions;
     private TriviaQuestionService triviaQuestionService;
 
 
     @BeforeEach
     void setUp() {
         MockitoAnnotations.openMocks(this);
-        this.triviaQuestionService = new TriviaQuestionService(this.apiClient, this.sessionService, this.questionMap);
+        TriviaProperties properties = new TriviaProperties();
+        QuestionStore questionStore = new QuestionStore();
+        this.questionIndex = new QuestionIndex(questionStore);
+        this.seenQuestions = new SeenQuestions(questionStore, properties);
+        this.triviaQuestionService = new TriviaQuestionService(this.apiClient, this.sessionService, this.questionMap,
+                this.questionPool, new TriviaMetadataCache(this.apiClient, properties), new AnswerTokenSigner(properties),
+                new QuestionBank(properties), this.questionIndex, this.seenQuestions,
+                new AdmissionController(properties), new PrefetchBuffer(properties), new ScoreBoard(properties), properties);
     }
 
     @Test
@@ -85,9 +105,11 @@ public class TriviaQuestionServiceTest {
         triviaQuestionsResponse.setResponse_code(0);
         triviaQuestionsResponse.setResults(Arrays.asList(question1,question2));
 
+        when(this.sessionService.usesUpstreamTokens()).thenReturn(true);
+
         when(this.sessionService.getOrCreateSessionToken(sessionId)).thenReturn(Mono.just("testToken"));
         when(this.apiClient.getTotalAmountOfQuestionsForCategory(categoryId)).thenReturn(Mono.just(10));
-        when(this.apiClient.getQuestions(amount,categoryId,"testToken")).thenReturn(Mono.just(triviaQuestionsResponse));
+        when(this.apiClient.getQuestions(amount,categoryId,"testToken", UpstreamScheduler.Priority.INTERACTIVE)).thenReturn(Mono.just(triviaQuestionsResponse));
         doNothing().when(this.questionMap).addQuestion(anyString(),any(Question.class));
 
         //Act
@@ -131,10 +153,12 @@ public class TriviaQuestionServiceTest {
         triviaQuestionsResponse.setResults(Arrays.asList(question1, question2));
         triviaQuestionsResponse.setResponse_code(0);
 
+        when(this.sessionService.usesUpstreamTokens()).thenReturn(true);
+
         when(this.sessionService.getOrCreateSessionToken(sessionId)).thenReturn(Mono.just(token));
         when(this.apiClient.getTotalAmountOfQuestionsForCategory(categoryId)).thenReturn(Mono.just(availableAmount));
 
-        when(this.apiClient.getQuestions(30,categoryId,token)).thenReturn(Mono.just(triviaQuestionsResponse));
+        when(this.apiClient.getQuestions(30,categoryId,token, UpstreamScheduler.Priority.INTERACTIVE)).thenReturn(Mono.just(triviaQuestionsResponse));
         doNothing().when(this.questionMap).addQuestion(anyString(), any(Question.class));
 
         //Act
@@ -151,6 +175,162 @@ public class TriviaQuestionServiceTest {
                 .verifyComplete();
     }
 
+    @Test
+    void testGetQuestions_amountAboveApiLimit_failedPageToppedUpFromIndex(){
+        //Arrange
+        String sessionId = "toernooiSessie";
+        Long categoryId = 1L;
+        String token = "testToken";
+        for(Question question : questionsResponse("Lokale vraag ", 60).getResults()){
+            this.questionIndex.add(categoryId, question);
+        }
+
+        when(this.sessionService.usesUpstreamTokens()).thenReturn(true);
+
+        when(this.sessionService.getOrCreateSessionToken(sessionId)).thenReturn(Mono.just(token));
+        when(this.apiClient.getTotalAmountOfQuestionsForCategory(categoryId)).thenReturn(Mono.just(200));
+        when(this.apiClient.getQuestions(50,categoryId,token, UpstreamScheduler.Priority.INTERACTIVE))
+                .thenReturn(Mono.just(questionsResponse("Pagina A vraag ", 50)))
+                .thenReturn(Mono.error(new RuntimeException("Trivia API niet bereikbaar")));
+        when(this.apiClient.getQuestions(20,categoryId,token, UpstreamScheduler.Priority.INTERACTIVE)).thenReturn(Mono.just(questionsResponse("Pagina B vraag ", 20)));
+
+        //Act
+        Mono<List<QuestionDTO>> resultMono = this.triviaQuestionService.getQuestions(120,categoryId,sessionId);
+
+        //Assert
+        StepVerifier.create(resultMono)
+                .assertNext(list -> {
+                    assertEquals(120, list.size());
+                    assertEquals(120, list.stream().map(QuestionDTO::getQuestion).distinct().count());
+                    assertEquals(50, list.stream().filter(q -> q.getQuestion().startsWith("Lokale vraag ")).count());
+                })
+                .verifyComplete();
+        verify(this.questionMap, times(120)).addQuestion(eq(sessionId), any(Question.class));
+    }
+
+    @Test
+    void testGetQuestions_amountAboveApiLimit_duplicatePagesShort_returnsPartialListAndRegistersOnlyServed(){
+        //Arrange
+        String sessionId = "toernooiSessie";
+        Long categoryId = 1L;
+        String token = "testToken";
+
+        when(this.sessionService.usesUpstreamTokens()).thenReturn(true);
+
+        when(this.sessionService.getOrCreateSessionToken(sessionId)).thenReturn(Mono.just(token));
+        when(this.apiClient.getTotalAmountOfQuestionsForCategory(categoryId)).thenReturn(Mono.just(200));
+        when(this.apiClient.getQuestions(50,categoryId,token, UpstreamScheduler.Priority.INTERACTIVE))
+                .thenReturn(Mono.just(questionsResponse("Pagina A vraag ", 50)))
+                .thenReturn(Mono.just(questionsResponse("Pagina A vraag ", 50)));
+        when(this.apiClient.getQuestions(20,categoryId,token, UpstreamScheduler.Priority.INTERACTIVE)).thenReturn(Mono.just(questionsResponse("Pagina B vraag ", 20)));
+
+        //Act
+        Mono<List<QuestionDTO>> resultMono = this.triviaQuestionService.getQuestions(120,categoryId,sessionId);
+
+        //Assert
+        StepVerifier.create(resultMono)
+                .assertNext(list -> {
+                    assertEquals(70, list.size());
+                    assertEquals(70, list.stream().map(QuestionDTO::getQuestion).distinct().count());
+                })
+                .verifyComplete();
+        verify(this.questionMap, times(70)).addQuestion(eq(sessionId), any(Question.class));
+    }
+
+    @Test
+    void testGetQuestions_amountAboveApiLimit_allPagesEmpty_throwsNotEnoughQuestions(){
+        //Arrange
+        String sessionId = "toernooiSessie";
+        Long categoryId = 1L;
+        String token = "testToken";
+
+        when(this.sessionService.usesUpstreamTokens()).thenReturn(true);
+
+        when(this.sessionService.getOrCreateSessionToken(sessionId)).thenReturn(Mono.just(token));
+        when(this.apiClient.getTotalAmountOfQuestionsForCategory(categoryId)).thenReturn(Mono.just(200));
+        when(this.apiClient.getQuestions(anyInt(), eq(categoryId), eq(token), eq(UpstreamScheduler.Priority.INTERACTIVE)))
+                .thenReturn(Mono.just(questionsResponse("Leeg ", 0)));
+
+        //Act
+        Mono<List<QuestionDTO>> resultMono = this.triviaQuestionService.getQuestions(120,categoryId,sessionId);
+
+        //Assert
+        StepVerifier.create(resultMono)
+                .expectError(NotEnoughQuestionsException.class)
+                .verify();
+        verify(this.questionMap, never()).addQuestion(anyString(), any(Question.class));
+    }
+
+    @Test
+    void testGetRoomQuestions_fetchedWithoutRegisteringAnySession(){
+        //Arrange
+        Long categoryId = 9L;
+        when(this.apiClient.getTotalAmountOfQuestionsForCategory(categoryId)).thenReturn(Mono.just(100));
+        when(this.apiClient.getQuestions(3, categoryId, null, UpstreamScheduler.Priority.INTERACTIVE))
+                .thenReturn(Mono.just(questionsResponse("Room vraag ", 3)));
+
+        //Act
+        Mono<List<Question>> resultMono = this.triviaQuestionService.getRoomQuestions(3, categoryId);
+
+        //Assert
+        StepVerifier.create(resultMono)
+                .assertNext(list -> {
+                    assertEquals(3, list.size());
+                    assertTrue(list.stream().allMatch(q -> q.getId() != null && "Ja".equals(q.getCorrect_answer())));
+                })
+                .verifyComplete();
+        verify(this.questionMap, never()).addQuestion(anyString(), any(Question.class));
+        verifyNoInteractions(this.sessionService);
+    }
+
+    @Test
+    void testStreamQuestions_emitsEachQuestionDecodedAndRegistered(){
+        //Arrange
+        String sessionId = "streamSessie";
+        Long categoryId = 1L;
+        String token = "testToken";
+        TriviaQuestionsResponse response = questionsResponse("Wie schreef &quot;Max Havelaar&quot;? ", 3);
+
+        when(this.sessionService.usesUpstreamTokens()).thenReturn(true);
+
+        when(this.sessionService.getOrCreateSessionToken(sessionId)).thenReturn(Mono.just(token));
+        when(this.apiClient.getTotalAmountOfQuestionsForCategory(categoryId)).thenReturn(Mono.just(10));
+        when(this.apiClient.getQuestions(3,categoryId,token, UpstreamScheduler.Priority.INTERACTIVE)).thenReturn(Mono.just(response));
+
+        //Act
+        Flux<QuestionDTO> resultFlux = this.triviaQuestionService.streamQuestions(3,categoryId,sessionId);
+
+        //Assert
+        StepVerifier.create(resultFlux)
+                .assertNext(dto -> assertEquals("Wie schreef \"Max Havelaar\"? 0", dto.getQuestion()))
+                .expectNextCount(2)
+                .verifyComplete();
+        verify(this.questionMap, times(3)).addQuestion(eq(sessionId), any(Question.class));
+    }
+
+    @Test
+    void testStreamQuestions_localRepeatAvoidance_topsUpFromIndexThenResets(){
+        //Arrange
+        String sessionId = "lokaleStreamSessie";
+        Long categoryId = 1L;
+        this.questionIndex.add(categoryId, questionsResponse("Lokale vraag ", 1).getResults().getFirst());
+        when(this.apiClient.getTotalAmountOfQuestionsForCategory(categoryId)).thenReturn(Mono.just(10));
+        when(this.apiClient.getQuestions(2, categoryId, null, UpstreamScheduler.Priority.INTERACTIVE))
+                .thenReturn(Mono.just(questionsResponse("Vraag ", 2)))
+                .thenReturn(Mono.just(questionsResponse("Vraag ", 2)))
+                .thenReturn(Mono.just(questionsResponse("Vraag ", 2)));
+
+        //Act
+        List<QuestionDTO> first = this.triviaQuestionService.streamQuestions(2, categoryId, sessionId).collectList().block();
+        List<QuestionDTO> second = this.triviaQuestionService.streamQuestions(2, categoryId, sessionId).collectList().block();
+        List<QuestionDTO> third = this.triviaQuestionService.streamQuestions(2, categoryId, sessionId).collectList().block();
+
+        //Assert
+        assertEquals(List.of("Vraag 0", "Vraag 1"), first.stream().map(QuestionDTO::getQuestion).toList());
+        assertEquals(List.of("Lokale vraag 0"), second.stream().map(QuestionDTO::getQuestion).toList());
+        assertEquals(List.of("Vraag 0", "Vraag 1"), third.stream().map(QuestionDTO::getQuestion).toList());
+    }
+
     @Test
     void testGetQuestions_invalidAmount_throwsInvalidRequestException(){
         //Arrange
@@ -170,6 +350,8 @@ public class TriviaQuestionServiceTest {
         Long categoryId = 99999L;
         int amount = 10;
 
+        when(this.sessionService.usesUpstreamTokens()).thenReturn(true);
+
         when(this.sessionService.getOrCreateSessionToken(sessionId)).thenReturn(Mono.just("testToken"));
         when(this.apiClient.getTotalAmountOfQuestionsForCategory(categoryId)).thenReturn(Mono.just(0));
 
@@ -184,6 +366,63 @@ public class TriviaQuestionServiceTest {
                 .verify();
     }
 
+    @Test
+    void testGetQuestions_difficultyFilter_servedFromIndexWithoutUpstreamCall(){
+        //Arrange
+        String sessionId = "filter-sessie";
+        Long categoryId = 9L;
+        for(Question question : questionsResponse("Makkelijke vraag ", 5).getResults()){
+            question.setDifficulty("easy");
+            question.setType("multiple");
+            this.questionIndex.add(categoryId, question);
+        }
+        for(Question question : questionsResponse("Moeilijke vraag ", 5).getResults()){
+            question.setDifficulty("hard");
+            question.setType("multiple");
+            this.questionIndex.add(categoryId, question);
+        }
+        Question seen = new Question();
+        seen.setQuestion("Moeilijke vraag 0");
+        this.seenQuestions.markSeen(sessionId, seen);
+
+        //Act
+        List<QuestionDTO> result = this.triviaQuestionService.getQuestions(4, categoryId, "HARD", null, sessionId).block();
+
+        //Assert
+        assertEquals(4, result.size());
+        assertTrue(result.stream().allMatch(q -> q.getQuestion().startsWith("Moeilijke vraag ")));
+        assertTrue(result.stream().noneMatch(q -> q.getQuestion().equals("Moeilijke vraag 0")));
+        verifyNoInteractions(this.apiClient, this.sessionService);
+    }
+
+    @Test
+    void testGetQuestions_difficultyFilter_tooFewUnseen_throwsNotEnoughQuestionsWithRealCount(){
+        //Arrange
+        String sessionId = "filter-sessie";
+        Long categoryId = 9L;
+        for(Question question : questionsResponse("Moeilijke vraag ", 3).getResults()){
+            question.setDifficulty("hard");
+            question.setType("multiple");
+            this.questionIndex.add(categoryId, question);
+        }
+
+        //Act
+        NotEnoughQuestionsException ex = assertThrows(NotEnoughQuestionsException.class,
+                () -> this.triviaQuestionService.getQuestions(5, categoryId, "hard", null, sessionId));
+
+        //Assert
+        assertTrue(ex.getMessage().contains("maar 3 vragen"));
+        assertFalse(this.seenQuestions.hasSeen(sessionId, this.questionIndex.find("Moeilijke vraag 0")));
+    }
+
+    @Test
+    void testGetQuestions_unknownType_throwsInvalidRequestException(){
+        //Act
+        //Assert
+        assertThrows(InvalidRequestException.class,
+                () -> this.triviaQuestionService.getQuestions(5, 9L, null, "open", "sessie"));
+    }
+
     @Test
     void getQuestions_withInvalidToken_retriesWithNewToken(){
         //Arrange
@@ -193,6 +432,8 @@ public class TriviaQuestionServiceTest {
         String oldToken = "oldToken";
         String newToken = "newTOken";
 
+        when(this.sessionService.usesUpstreamTokens()).thenReturn(true);
+
         when(this.sessionService.getOrCreateSessionToken(sessionId)).thenReturn(Mono.just(oldToken));
         when(this.apiClient.getTotalAmountOfQuestionsForCategory(categoryId)).thenReturn(Mono.just(10));
 
@@ -210,9 +451,9 @@ public class TriviaQuestionServiceTest {
         validResponse.setResults(Arrays.asList(question1));
         validResponse.setResponse_code(0);
 
-        when(this.apiClient.getQuestions(amount,categoryId,oldToken)).thenReturn(Mono.just(invalidResponse));
-        when(this.sessionService.ensureValidToken(sessionId,4)).thenReturn(Mono.just(newToken));
-        when(this.apiClient.getQuestions(amount,categoryId,newToken)).thenReturn(Mono.just(validResponse));
+        when(this.apiClient.getQuestions(amount,categoryId,oldToken, UpstreamScheduler.Priority.INTERACTIVE)).thenReturn(Mono.just(invalidResponse));
+        when(this.sessionService.ensureValidToken(sessionId,4,oldToken)).thenReturn(Mono.just(newToken));
+        when(this.apiClient.getQuestions(amount,categoryId,newToken, UpstreamScheduler.Priority.INTERACTIVE)).thenReturn(Mono.just(validResponse));
         doNothing().when(this.questionMap).addQuestion(anyString(), any(Question.class));
 
         //Act
@@ -228,6 +469,108 @@ public class TriviaQuestionServiceTest {
                 .verifyComplete();
     }
 
+    @Test
+    void testGetQuestions_localRepeatAvoidance_skipsSeenQuestionsWithoutTokens(){
+        //Arrange
+        String sessionId = "lokaleSessie";
+        Long categoryId = 1L;
+        for(Question question : questionsResponse("Lokale vraag ", 5).getResults()){
+            this.questionIndex.add(categoryId, question);
+        }
+        when(this.apiClient.getTotalAmountOfQuestionsForCategory(categoryId)).thenReturn(Mono.just(10));
+        when(this.apiClient.getQuestions(2, categoryId, null, UpstreamScheduler.Priority.INTERACTIVE))
+                .thenReturn(Mono.just(questionsResponse("Vraag ", 2)))
+                .thenReturn(Mono.just(questionsResponse("Vraag ", 2)));
+
+        //Act
+        List<QuestionDTO> first = this.triviaQuestionService.getQuestions(2, categoryId, sessionId).block();
+        List<QuestionDTO> second = this.triviaQuestionService.getQuestions(2, categoryId, sessionId).block();
+
+        //Assert
+        assertEquals(List.of("Vraag 0", "Vraag 1"), first.stream().map(QuestionDTO::getQuestion).toList());
+        assertEquals(2, second.size());
+        assertTrue(second.stream().allMatch(q -> q.getQuestion().startsWith("Lokale vraag ")));
+        verify(this.sessionService, never()).getOrCreateSessionToken(anyString());
+        verify(this.apiClient, never()).requestNewToken();
+    }
+
+    @Test
+    void testGetQuestions_prefetchEnabled_servesNextBatchFromBufferWithSessionToken(){
+        //Arrange
+        TriviaProperties properties = new TriviaProperties();
+        properties.getPrefetch().setEnabled(true);
+        QuestionStore questionStore = new QuestionStore();
+        QuestionIndex questionIndex = new QuestionIndex(questionStore);
+        PrefetchBuffer prefetchBuffer = new PrefetchBuffer(properties);
+        TriviaQuestionService service = new TriviaQuestionService(this.apiClient, this.sessionService, this.questionMap,
+                this.questionPool, new TriviaMetadataCache(this.apiClient, properties), new AnswerTokenSigner(properties),
+                new QuestionBank(properties), questionIndex, new SeenQuestions(questionStore, properties),
+                new AdmissionController(properties), prefetchBuffer, new ScoreBoard(properties), properties);
+        String sessionId = "prefetchSessie";
+        Long categoryId = 4L;
+        when(this.sessionService.usesUpstreamTokens()).thenReturn(true);
+        when(this.sessionService.getOrCreateSessionToken(sessionId)).thenReturn(Mono.just("sessieToken"));
+        when(this.apiClient.getTotalAmountOfQuestionsForCategory(categoryId)).thenReturn(Mono.just(100));
+        when(this.apiClient.getQuestions(3, categoryId, "sessieToken", UpstreamScheduler.Priority.INTERACTIVE))
+                .thenReturn(Mono.just(questionsResponse("Eerste batch ", 3)));
+        when(this.apiClient.getQuestions(3, categoryId, "sessieToken", UpstreamScheduler.Priority.BACKGROUND))
+                .thenReturn(Mono.just(questionsResponse("Tweede batch ", 3)))
+                .thenReturn(Mono.just(questionsResponse("Derde batch ", 3)));
+
+        //Act
+        List<QuestionDTO> first = service.getQuestions(3, categoryId, sessionId).block();
+        List<QuestionDTO> second = service.getQuestions(3, categoryId, sessionId).block();
+
+        //Assert
+        assertEquals(List.of("Eerste batch 0", "Eerste batch 1", "Eerste batch 2"), first.stream().map(QuestionDTO::getQuestion).toList());
+        assertEquals(List.of("Tweede batch 0", "Tweede batch 1", "Tweede batch 2"), second.stream().map(QuestionDTO::getQuestion).toList());
+        verify(this.apiClient, times(1)).getQuestions(3, categoryId, "sessieToken", UpstreamScheduler.Priority.INTERACTIVE);
+        verify(this.apiClient, times(2)).getQuestions(3, categoryId, "sessieToken", UpstreamScheduler.Priority.BACKGROUND);
+        assertEquals(1, prefetchBuffer.size());
+    }
+
+    @Test
+    void testGetQuestions_prefetchForOtherCategory_isDiscarded(){
+        //Arrange
+        TriviaProperties properties = new TriviaProperties();
+        properties.getPrefetch().setEnabled(true);
+        PrefetchBuffer prefetchBuffer = new PrefetchBuffer(properties);
+        prefetchBuffer.prefetch("sessie", 1L, 5, () -> Mono.just(questionsResponse("Categorie 1 ", 5).getResults()));
+
+        //Act
+        Mono<List<Question>> otherCategory = prefetchBuffer.take("sessie", 2L, 5);
+        Mono<List<Question>> afterDiscard = prefetchBuffer.take("sessie", 1L, 5);
+
+        //Assert
+        assertNull(otherCategory);
+        assertNull(afterDiscard);
+        assertEquals(0, prefetchBuffer.size());
+    }
+
+    @Test
+    void testGetQuestions_upstreamUnavailable_servesUnseenQuestionsFromIndex(){
+        //Arrange
+        String sessionId = "storingSessie";
+        Long categoryId = 1L;
+        for(Question question : questionsResponse("Lokale vraag ", 3).getResults()){
+            this.questionIndex.add(categoryId, question);
+        }
+        when(this.apiClient.getTotalAmountOfQuestionsForCategory(categoryId))
+                .thenReturn(Mono.error(new UpstreamUnavailableException("count")));
+
+        //Act
+        List<QuestionDTO> first = this.triviaQuestionService.getQuestions(2, categoryId, sessionId).block();
+        List<QuestionDTO> second = this.triviaQuestionService.getQuestions(2, categoryId, sessionId).block();
+
+        //Assert
+        assertEquals(2, first.size());
+        assertEquals(1, second.size());
+        assertFalse(first.stream().anyMatch(q -> q.getQuestion().equals(second.getFirst().getQuestion())));
+        StepVerifier.create(this.triviaQuestionService.getQuestions(2, categoryId, sessionId))
+                .expectError(UpstreamUnavailableException.class)
+                .verify();
+    }
+
     @Test
     void testCheckAnswers_correctAnswer_returnsTrue(){
         //Arrange
@@ -250,6 +593,33 @@ public class TriviaQuestionServiceTest {
         assertTrue(this.triviaQuestionService.checkAnswer(sessionId,answerDTO));
     }
 
+    @Test
+    void testCheckAnswer_updatesScoreAndLeaderboardOncePerQuestion(){
+        //Arrange
+        Question question = new Question();
+        question.setQuestion("Hoeveel is 2 + 2?");
+        question.setCorrect_answer("4");
+        this.questionIndex.add(1L, question);
+        String sessionId = "scoreSessie";
+        when(this.questionMap.getQuestionsForSession(sessionId)).thenReturn(Map.of(question.getQuestion(), question));
+        AnswerDTO answerDTO = new AnswerDTO();
+        answerDTO.setQuestion("Hoeveel is 2 + 2?");
+        answerDTO.setChosen_answer("4");
+
+        //Act
+        this.triviaQuestionService.checkAnswer(sessionId, answerDTO);
+        this.triviaQuestionService.checkAnswer(sessionId, answerDTO);
+
+        //Assert
+        ScoreDTO score = this.triviaQuestionService.getScore(sessionId);
+        assertEquals(1, score.getCorrect());
+        assertEquals(1, score.getAnswered());
+        List<LeaderboardEntryDTO> leaderboard = this.triviaQuestionService.getLeaderboard(10);
+        assertEquals(1, leaderboard.size());
+        assertEquals(score.getPlayer(), leaderboard.getFirst().getPlayer());
+        assertThrows(InvalidRequestException.class, () -> this.triviaQuestionService.getLeaderboard(0));
+    }
+
     @Test
     void testCheckAnswers_wrongAnswer_returnsFalse(){
         //Arrange
@@ -295,4 +665,56 @@ public class TriviaQuestionServiceTest {
                 () -> this.triviaQuestionService.checkAnswer(sessionId,answerDTO));
     }
 
+    @Test
+    void testCheckAnswers_mixedAnswers_returnsPerQuestionResultsAndScore(){
+        //Arrange
+        Question question1 = new Question();
+        question1.setQuestion("Hoeveel is 50 + 50?");
+        question1.setCorrect_answer("100");
+        Question question2 = new Question();
+        question2.setQuestion("Bevindt Nederland zich in Europa?");
+        question2.setCorrect_answer("Ja");
+        String sessionId = "Session123je12i";
+
+        Map<String, Question> questionMap = new HashMap<>();
+        questionMap.put(question1.getQuestion(),question1);
+        questionMap.put(question2.getQuestion(),question2);
+
+        when(this.questionMap.getQuestionsForSession(sessionId)).thenReturn(questionMap);
+
+        AnswerDTO answer1 = new AnswerDTO();
+        answer1.setQuestion("Hoeveel is 50 + 50?");
+        answer1.setChosen_answer("100");
+        AnswerDTO answer2 = new AnswerDTO();
+        answer2.setQuestion("Bevindt Nederland zich in Europa?");
+        answer2.setChosen_answer("Nee");
+        AnswerDTO answer3 = new AnswerDTO();
+        answer3.setQuestion("Deze vraag staat niet in de lijst.");
+        answer3.setChosen_answer("Automerk mercedes");
+
+        //Act
+        BatchAnswerResultDTO result = this.triviaQuestionService.checkAnswers(sessionId, Arrays.asList(answer1, answer2, answer3));
+
+        //Assert
+        assertEquals(3, result.getTotal());
+        assertEquals(1, result.getCorrect());
+        assertTrue(result.getResults().get(0).isCorrect());
+        assertFalse(result.getResults().get(1).isCorrect());
+        assertTrue(result.getResults().get(1).isFound());
+        assertFalse(result.getResults().get(2).isFound());
+        verify(this.questionMap, times(1)).getQuestionsForSession(sessionId);
+    }
+
+    private static TriviaQuestionsResponse questionsResponse(String prefix, int amount){
+        List<Question> questions = new ArrayList<>();
+        for(int i = 0; i < amount; i++){
+            Question question = new Question();
+            question.setQuestion(prefix + i);
+            question.setCorrect_answer("Ja");
+            question.setIncorrect_answers(Arrays.asList("Nee"));
+            questions.add(question);
+        }
+        return new TriviaQuestionsResponse(0, questions);
+    }
+
 }
@@ -0,0 +1,93 @@
+package com.trivia.demo.service;
+
+import com.trivia.demo.config.TriviaProperties;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.test.StepVerifier;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class TriviaSessionServiceTest {
+
+    @Mock
+    private OpenTriviaApiClient apiClient;
+    private TriviaSessionService sessionService;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        this.sessionService = new TriviaSessionService(this.apiClient, new TriviaProperties());
+    }
+
+    @Test
+    void testGetOrCreateSessionToken_parallelRequestsForNewSession_requestTokenOnce(){
+        //Arrange
+        String sessionId = "nieuweSessie";
+        Sinks.One<String> upstream = Sinks.one();
+        when(this.apiClient.requestNewToken()).thenReturn(upstream.asMono());
+
+        //Act
+        Flux<String> tokens = Flux.range(0, 20)
+                .flatMap(i -> this.sessionService.getOrCreateSessionToken(sessionId));
+
+        //Assert
+        StepVerifier.create(tokens.collectList())
+                .then(() -> upstream.tryEmitValue("token1"))
+                .assertNext(list -> {
+                    assertEquals(20, list.size());
+                    assertTrue(list.stream().allMatch("token1"::equals));
+                })
+                .verifyComplete();
+        verify(this.apiClient, times(1)).requestNewToken();
+        assertEquals(19, this.sessionService.deduplicatedTokenRequests());
+        assertEquals(1, this.sessionService.tokensCreated());
+        StepVerifier.create(this.sessionService.getOrCreateSessionToken(sessionId)).expectNext("token1").verifyComplete();
+    }
+
+    @Test
+    void testEnsureValidToken_parallelResets_coalescedIntoOneReset(){
+        //Arrange
+        String sessionId = "sessie";
+        Sinks.One<String> reset = Sinks.one();
+        when(this.apiClient.requestNewToken()).thenReturn(Mono.just("oud"));
+        when(this.apiClient.resetToken("oud")).thenReturn(reset.asMono());
+        this.sessionService.getOrCreateSessionToken(sessionId).block();
+
+        //Act
+        Flux<String> tokens = Flux.fromIterable(List.of(4, 4, 3, 4))
+                .flatMap(code -> this.sessionService.ensureValidToken(sessionId, code));
+
+        //Assert
+        StepVerifier.create(tokens.collectList())
+                .then(() -> reset.tryEmitValue("nieuw"))
+                .assertNext(list -> assertTrue(list.stream().allMatch("nieuw"::equals)))
+                .verifyComplete();
+        verify(this.apiClient, times(1)).resetToken("oud");
+        assertEquals(3, this.sessionService.deduplicatedTokenResets());
+    }
+
+    @Test
+    void testEnsureValidToken_failedTokenAlreadyReplaced_returnsCurrentTokenWithoutReset(){
+        //Arrange
+        String sessionId = "sessie";
+        when(this.apiClient.requestNewToken()).thenReturn(Mono.just("oud"));
+        when(this.apiClient.resetToken("oud")).thenReturn(Mono.just("nieuw"));
+        this.sessionService.getOrCreateSessionToken(sessionId).block();
+        this.sessionService.ensureValidToken(sessionId, 4, "oud").block();
+
+        //Act
+        String token = this.sessionService.ensureValidToken(sessionId, 4, "oud").block();
+
+        //Assert
+        assertEquals("nieuw", token);
+        verify(this.apiClient, times(1)).resetToken(anyString());
+    }
+}
@@ -0,0 +1,48 @@
+package com.trivia.demo.store;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CompactIntSetTest {
+
+    @Test
+    void testAdd_sparseAndDenseIds_keepsMembershipAcrossConversion(){
+        //Arrange
+        CompactIntSet set = new CompactIntSet();
+
+        //Act
+        boolean addedSparse = set.add(100_000);
+        boolean addedAgain = set.add(100_000);
+        for(int id = 0; id < 5_000; id += 2){
+            set.add(id);
+        }
+
+        //Assert
+        assertTrue(addedSparse);
+        assertFalse(addedAgain);
+        assertEquals(2_501, set.size());
+        assertTrue(set.contains(100_000));
+        assertTrue(set.contains(4_998));
+        assertFalse(set.contains(4_999));
+        assertFalse(set.contains(100_001));
+    }
+
+    @Test
+    void testClear_afterConversion_startsEmpty(){
+        //Arrange
+        CompactIntSet set = new CompactIntSet();
+        for(int id = 0; id < 1_000; id++){
+            set.add(id);
+        }
+
+        //Act
+        set.clear();
+        set.add(7);
+
+        //Assert
+        assertEquals(1, set.size());
+        assertTrue(set.contains(7));
+        assertFalse(set.contains(8));
+    }
+}
@@ -0,0 +1,82 @@
+package com.trivia.demo.store;
+
+import com.trivia.demo.config.TriviaProperties;
+import com.trivia.demo.model.Question;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class QuestionBankTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void testLoad_afterRestart_returnsAppendedQuestionsWithCategory(){
+        //Arrange
+        Path file = this.directory.resolve("bank.bin");
+        QuestionBank bank = new QuestionBank(properties(file));
+        bank.append(9L, List.of(question("Wat is 1 &amp; 1?"), question("Wat is 2 + 2?")));
+        bank.append(null, List.of(question("Wat is 2 + 2?"), question("Wat is 3 + 3?")));
+        bank.close();
+        List<String> loaded = new ArrayList<>();
+
+        //Act
+        QuestionBank restarted = new QuestionBank(properties(file));
+        int size = restarted.load((categoryId, question) -> loaded.add(categoryId + ":" + question.getQuestion()));
+        restarted.close();
+
+        //Assert
+        assertEquals(3, size);
+        assertEquals(List.of("9:Wat is 1 &amp; 1?", "9:Wat is 2 + 2?", "null:Wat is 3 + 3?"), loaded);
+    }
+
+    @Test
+    void testLoad_truncatedLastRecord_skipsRecordAndKeepsAppending() throws IOException {
+        //Arrange
+        Path file = this.directory.resolve("bank.bin");
+        QuestionBank bank = new QuestionBank(properties(file));
+        bank.append(9L, List.of(question("Vraag 1")));
+        bank.close();
+        Files.write(file, new byte[]{0, 0, 0, 100, 1, 2, 3}, StandardOpenOption.APPEND);
+
+        QuestionBank afterCrash = new QuestionBank(properties(file));
+        afterCrash.append(10L, List.of(question("Vraag 2")));
+        afterCrash.close();
+        List<String> loaded = new ArrayList<>();
+
+        //Act
+        QuestionBank restarted = new QuestionBank(properties(file));
+        restarted.load((categoryId, question) -> loaded.add(categoryId + ":" + question.getQuestion()));
+        restarted.close();
+
+        //Assert
+        assertEquals(List.of("9:Vraag 1", "10:Vraag 2"), loaded);
+    }
+
+    private static TriviaProperties properties(Path file){
+        TriviaProperties properties = new TriviaProperties();
+        properties.getBank().setEnabled(true);
+        properties.getBank().setPath(file.toString());
+        return properties;
+    }
+
+    private static Question question(String text){
+        Question question = new Question();
+        question.setType("multiple");
+        question.setDifficulty("easy");
+        question.setCategory("Algemeen");
+        question.setQuestion(text);
+        question.setCorrect_answer("Goed");
+        question.setIncorrect_answers(List.of("Fout 1", "Fout 2", "Fout 3"));
+        return question;
+    }
+}
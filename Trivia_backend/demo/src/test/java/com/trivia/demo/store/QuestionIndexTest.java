@@ -0,0 +1,97 @@
+package com.trivia.demo.store;
+
+import com.trivia.demo.model.Question;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class QuestionIndexTest {
+
+    private QuestionIndex questionIndex;
+
+    @BeforeEach
+    void setUp() {
+        this.questionIndex = new QuestionIndex(new QuestionStore());
+        String[] difficulties = {"easy", "medium", "hard"};
+        for(int i = 0; i < 300; i++){
+            this.questionIndex.add(i % 2 == 0 ? 9L : 10L, question("Vraag " + i, difficulties[i % 3], i % 5 == 0 ? "boolean" : "multiple"));
+        }
+    }
+
+    @Test
+    void testSample_filters_returnsDistinctMatchingQuestions(){
+        //Act
+        List<Question> sample = this.questionIndex.sample(9L, "medium", null, 20, q -> true);
+
+        //Assert
+        Set<String> texts = new HashSet<>();
+        sample.forEach(q -> texts.add(q.getQuestion()));
+        assertEquals(20, sample.size());
+        assertEquals(20, texts.size());
+        assertTrue(sample.stream().allMatch(q -> q.getDifficulty().equals("medium")));
+        assertTrue(sample.stream().allMatch(q -> Integer.parseInt(q.getQuestion().substring(6)) % 2 == 0));
+    }
+
+    @Test
+    void testSample_moreRequestedThanAvailable_returnsWholePopulationOnce(){
+        //Arrange
+        int population = this.questionIndex.size(null, null, "boolean");
+
+        //Act
+        List<Question> sample = this.questionIndex.sample(null, null, "boolean", 1000, q -> true);
+
+        //Assert
+        assertEquals(60, population);
+        assertEquals(population, sample.size());
+        assertEquals(population, new HashSet<>(sample).size());
+    }
+
+    @Test
+    void testAdd_sameQuestionTwice_indexedOnce(){
+        //Act
+        this.questionIndex.add(10L, question("Vraag 0", "easy", "boolean"));
+
+        //Assert
+        assertEquals(300, this.questionIndex.size(null, null, null));
+    }
+
+    @Test
+    void testAdd_fetchedWithoutCategory_indexedUnderCategoryOnceItsNameIsKnown(){
+        //Arrange
+        Question anyBefore = question("Zonder categorie 1", "easy", "boolean");
+        anyBefore.setCategory("Geschiedenis");
+        Question known = question("Met categorie", "easy", "boolean");
+        known.setCategory("Geschiedenis");
+        Question anyAfter = question("Zonder categorie 2", "hard", "multiple");
+        anyAfter.setCategory("Geschiedenis");
+
+        //Act
+        this.questionIndex.add(null, anyBefore);
+        this.questionIndex.add(23L, known);
+        this.questionIndex.add(null, anyAfter);
+
+        //Assert
+        List<Question> category = this.questionIndex.sample(23L, null, null, 10, q -> true);
+        assertEquals(Set.of("Zonder categorie 1", "Met categorie", "Zonder categorie 2"),
+                category.stream().map(Question::getQuestion).collect(Collectors.toSet()));
+        List<Question> all = this.questionIndex.sample(null, null, null, 1000, q -> true);
+        assertEquals(303, all.size());
+        assertEquals(303, new HashSet<>(all).size());
+    }
+
+    private static Question question(String text, String difficulty, String type){
+        Question question = new Question();
+        question.setQuestion(text);
+        question.setDifficulty(difficulty);
+        question.setType(type);
+        question.setCorrect_answer("Ja");
+        question.setIncorrect_answers(List.of("Nee"));
+        return question;
+    }
+}
@@ -0,0 +1,111 @@
+package com.trivia.demo.store;
+
+import com.trivia.demo.config.TriviaProperties;
+import com.trivia.demo.model.LeaderboardEntryDTO;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ScoreBoardTest {
+
+    private static ScoreBoard scoreBoard(int size){
+        TriviaProperties properties = new TriviaProperties();
+        properties.getLeaderboard().setSize(size);
+        return new ScoreBoard(properties);
+    }
+
+    @Test
+    void testLeaderboard_keepsTopKInScoreOrder(){
+        //Arrange
+        ScoreBoard scoreBoard = scoreBoard(3);
+        int[] points = {1, 5, 3, 4, 2};
+
+        //Act
+        for(int session = 0; session < points.length; session++){
+            for(int question = 0; question < points[session]; question++){
+                scoreBoard.record("sessie" + session, question, true);
+            }
+            scoreBoard.record("sessie" + session, 100, false);
+        }
+        List<LeaderboardEntryDTO> leaderboard = scoreBoard.leaderboard(10);
+
+        //Assert
+        assertEquals(List.of(5L, 4L, 3L), leaderboard.stream().map(LeaderboardEntryDTO::getCorrect).toList());
+        assertEquals(List.of(1, 2, 3), leaderboard.stream().map(LeaderboardEntryDTO::getRank).toList());
+        assertEquals(scoreBoard.score("sessie1").getPlayer(), leaderboard.getFirst().getPlayer());
+        assertEquals(6, leaderboard.getFirst().getAnswered());
+        assertNotEquals("sessie1", leaderboard.getFirst().getPlayer());
+    }
+
+    @Test
+    void testRecord_sameQuestionTwice_countsOnlyFirstAttempt(){
+        //Arrange
+        ScoreBoard scoreBoard = scoreBoard(10);
+
+        //Act
+        scoreBoard.record("sessie", 7, false);
+        scoreBoard.record("sessie", 7, true);
+        scoreBoard.record("sessie", 8, true);
+        scoreBoard.record("sessie", 8, true);
+
+        //Assert
+        assertEquals(1, scoreBoard.score("sessie").getCorrect());
+        assertEquals(2, scoreBoard.score("sessie").getAnswered());
+    }
+
+    @Test
+    void testRecord_unknownQuestion_doesNotCount(){
+        //Arrange
+        ScoreBoard scoreBoard = scoreBoard(10);
+
+        //Act
+        scoreBoard.record("sessie", -1, true);
+        scoreBoard.record("sessie", -1, true);
+
+        //Assert
+        assertEquals(0, scoreBoard.score("sessie").getCorrect());
+        assertEquals(0, scoreBoard.score("sessie").getAnswered());
+        assertTrue(scoreBoard.leaderboard(10).isEmpty());
+    }
+
+    @Test
+    void testRecord_concurrentWriters_keepExactScoresAndUniqueRanking() throws InterruptedException{
+        //Arrange
+        ScoreBoard scoreBoard = scoreBoard(10);
+        int sessions = 50;
+        int questions = 200;
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+
+        //Act
+        for(int session = 0; session < sessions; session++){
+            String sessionId = "sessie" + session;
+            int correctUpTo = session * 4;
+            for(int thread = 0; thread < 4; thread++){
+                int offset = thread;
+                executor.execute(() -> {
+                    for(int question = offset; question < questions; question += 4){
+                        scoreBoard.record(sessionId, question, question < correctUpTo);
+                    }
+                });
+            }
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+        List<LeaderboardEntryDTO> leaderboard = scoreBoard.leaderboard(10);
+
+        //Assert
+        assertEquals(196, scoreBoard.score("sessie49").getCorrect());
+        assertEquals(200, scoreBoard.score("sessie49").getAnswered());
+        assertEquals(10, leaderboard.size());
+        assertEquals(10, new HashSet<>(leaderboard.stream().map(LeaderboardEntryDTO::getPlayer).toList()).size());
+        for(int rank = 0; rank < 10; rank++){
+            assertEquals(196 - rank * 4, leaderboard.get(rank).getCorrect());
+        }
+    }
+}
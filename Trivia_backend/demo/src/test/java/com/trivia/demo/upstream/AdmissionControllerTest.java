@@ -0,0 +1,102 @@
+package com.trivia.demo.upstream;
+
+import com.trivia.demo.config.TriviaProperties;
+import com.trivia.demo.exception.TooManyRequestsException;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AdmissionControllerTest {
+
+    private static TriviaProperties.Admission admission(int initialLimit, int maxQueue){
+        TriviaProperties.Admission admission = new TriviaProperties.Admission();
+        admission.setInitialLimit(initialLimit);
+        admission.setMinLimit(1);
+        admission.setMaxLimit(10);
+        admission.setMaxQueue(maxQueue);
+        admission.setQueueTimeout(Duration.ofSeconds(5));
+        admission.setLatencyTarget(Duration.ofSeconds(2));
+        return admission;
+    }
+
+    @Test
+    void testAdmit_limitAndQueueFull_rejectsWithRetryAfter(){
+        //Arrange
+        AdmissionController controller = new AdmissionController(admission(1, 1), new AtomicLong()::get);
+        Sinks.One<String> first = Sinks.one();
+        Sinks.One<String> second = Sinks.one();
+        controller.admit(first::asMono, ex -> true).subscribe(value -> {}, ex -> {});
+        controller.admit(second::asMono, ex -> true).subscribe(value -> {}, ex -> {});
+
+        //Act & Assert
+        StepVerifier.create(controller.admit(() -> Mono.just("derde"), ex -> true))
+                .expectErrorSatisfies(ex -> {
+                    assertInstanceOf(TooManyRequestsException.class, ex);
+                    assertTrue(((TooManyRequestsException) ex).getRetryAfterSeconds() >= 1);
+                })
+                .verify();
+        assertEquals(1, controller.inFlight());
+        assertEquals(1, controller.queued());
+        assertEquals(1, controller.rejectedCount());
+    }
+
+    @Test
+    void testAdmit_queuedRequest_runsWhenPermitIsReleased(){
+        //Arrange
+        AdmissionController controller = new AdmissionController(admission(1, 1), new AtomicLong()::get);
+        Sinks.One<String> first = Sinks.one();
+        controller.admit(first::asMono, ex -> true).subscribe(value -> {}, ex -> {});
+        Mono<String> queued = controller.admit(() -> Mono.just("tweede"), ex -> true);
+
+        //Act & Assert
+        StepVerifier.create(queued)
+                .then(() -> first.tryEmitValue("eerste"))
+                .expectNext("tweede")
+                .verifyComplete();
+        assertEquals(0, controller.inFlight());
+        assertEquals(0, controller.queued());
+    }
+
+    @Test
+    void testAdmit_queueTimeout_rejectsWaitingRequest(){
+        //Arrange
+        TriviaProperties.Admission admission = admission(1, 1);
+        admission.setQueueTimeout(Duration.ofMillis(50));
+        AdmissionController controller = new AdmissionController(admission, new AtomicLong()::get);
+        controller.admit(() -> Sinks.<String>one().asMono(), ex -> true).subscribe(value -> {}, ex -> {});
+
+        //Act & Assert
+        StepVerifier.create(controller.admit(() -> Mono.just("tweede"), ex -> true))
+                .expectError(TooManyRequestsException.class)
+                .verify(Duration.ofSeconds(2));
+        assertEquals(0, controller.queued());
+    }
+
+    @Test
+    void testAdmit_fastSuccesses_increaseLimitAndOverloadDecreasesIt(){
+        //Arrange
+        AtomicLong clock = new AtomicLong();
+        AdmissionController controller = new AdmissionController(admission(2, 0), clock::get);
+
+        //Act
+        for(int i = 0; i < 10; i++){
+            controller.admit(() -> Mono.just("snel"), ex -> true).block();
+        }
+        int increased = controller.limit();
+        for(int i = 0; i < 5; i++){
+            clock.addAndGet(Duration.ofSeconds(1).toNanos());
+            controller.admit(() -> Mono.error(new RuntimeException("opentdb down")), ex -> true)
+                    .onErrorResume(ex -> Mono.empty()).block();
+        }
+
+        //Assert
+        assertTrue(increased > 2);
+        assertTrue(controller.limit() < increased);
+    }
+}
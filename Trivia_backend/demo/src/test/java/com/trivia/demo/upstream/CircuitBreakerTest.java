@@ -0,0 +1,102 @@
+package com.trivia.demo.upstream;
+
+import com.trivia.demo.exception.UpstreamUnavailableException;
+import org.junit.jupiter.api.Test;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CircuitBreakerTest {
+
+    @Test
+    void testProtect_consecutiveFailures_opensAndFailsFastWithoutCallingUpstream(){
+        //Arrange
+        AtomicLong clock = new AtomicLong();
+        CircuitBreaker breaker = new CircuitBreaker("questions", 3, Duration.ofSeconds(30), clock::get);
+        AtomicInteger calls = new AtomicInteger();
+        Mono<String> failing = Mono.defer(() -> {
+            calls.incrementAndGet();
+            return Mono.error(new RuntimeException("opentdb down"));
+        });
+
+        //Act
+        for(int i = 0; i < 3; i++){
+            breaker.protect(failing).onErrorResume(ex -> Mono.empty()).block();
+        }
+
+        //Assert
+        assertEquals(CircuitBreaker.State.OPEN, breaker.state());
+        StepVerifier.create(breaker.protect(failing)).expectError(UpstreamUnavailableException.class).verify();
+        assertEquals(3, calls.get());
+        assertEquals(1, breaker.rejectedCount());
+    }
+
+    @Test
+    void testProtect_afterOpenDuration_allowsSingleProbeAndClosesOnSuccess(){
+        //Arrange
+        AtomicLong clock = new AtomicLong();
+        CircuitBreaker breaker = new CircuitBreaker("count", 1, Duration.ofSeconds(30), clock::get);
+        breaker.protect(Mono.error(new RuntimeException("opentdb down"))).onErrorResume(ex -> Mono.empty()).block();
+        clock.addAndGet(Duration.ofSeconds(31).toNanos());
+
+        Sinks.One<Integer> probeResult = Sinks.one();
+
+        //Act & Assert
+        StepVerifier.create(breaker.protect(probeResult.asMono()))
+                .then(() -> {
+                    assertRejected(breaker);
+                    probeResult.tryEmitValue(7);
+                })
+                .expectNext(7)
+                .verifyComplete();
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.state());
+        StepVerifier.create(breaker.protect(Mono.just(42))).expectNext(42).verifyComplete();
+    }
+
+    @Test
+    void testProtect_cancelledCallFromBeforeOpening_keepsProbeSlotTaken(){
+        //Arrange
+        AtomicLong clock = new AtomicLong();
+        CircuitBreaker breaker = new CircuitBreaker("questions", 1, Duration.ofSeconds(30), clock::get);
+        Disposable slowCall = breaker.protect(Mono.never()).subscribe();
+        breaker.protect(Mono.error(new RuntimeException("opentdb down"))).onErrorResume(ex -> Mono.empty()).block();
+        clock.addAndGet(Duration.ofSeconds(31).toNanos());
+        Disposable probe = breaker.protect(Mono.never()).subscribe();
+
+        //Act
+        slowCall.dispose();
+
+        //Assert
+        assertRejected(breaker);
+        probe.dispose();
+        StepVerifier.create(breaker.protect(Mono.just(42))).expectNext(42).verifyComplete();
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.state());
+    }
+
+    @Test
+    void testProtect_failedProbe_reopensCircuit(){
+        //Arrange
+        AtomicLong clock = new AtomicLong();
+        CircuitBreaker breaker = new CircuitBreaker("categories", 1, Duration.ofSeconds(30), clock::get);
+        breaker.protect(Mono.error(new RuntimeException("opentdb down"))).onErrorResume(ex -> Mono.empty()).block();
+        clock.addAndGet(Duration.ofSeconds(31).toNanos());
+
+        //Act
+        breaker.protect(Mono.error(new RuntimeException("nog steeds down"))).onErrorResume(ex -> Mono.empty()).block();
+
+        //Assert
+        assertEquals(CircuitBreaker.State.OPEN, breaker.state());
+        assertRejected(breaker);
+    }
+
+    private static void assertRejected(CircuitBreaker breaker){
+        StepVerifier.create(breaker.protect(Mono.just(0))).expectError(UpstreamUnavailableException.class).verify();
+    }
+}
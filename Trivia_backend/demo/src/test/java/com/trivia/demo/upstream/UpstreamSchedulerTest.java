@@ -0,0 +1,121 @@
+package com.trivia.demo.upstream;
+
+import com.trivia.demo.config.TriviaProperties;
+import com.trivia.demo.model.Question;
+import com.trivia.demo.model.TriviaQuestionsResponse;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class UpstreamSchedulerTest {
+
+    private UpstreamScheduler scheduler;
+
+    @AfterEach
+    void tearDown() {
+        this.scheduler.shutdown();
+    }
+
+    @Test
+    void testSchedule_moreCallsThanBurst_waitsForBucketInsteadOfFailing(){
+        //Arrange
+        this.scheduler = scheduler(Duration.ofMillis(200));
+        List<Long> startTimes = new CopyOnWriteArrayList<>();
+
+        //Act
+        List<Integer> results = Mono.zip(
+                this.scheduler.schedule(UpstreamScheduler.Priority.INTERACTIVE, () -> record(startTimes, 1)),
+                this.scheduler.schedule(UpstreamScheduler.Priority.INTERACTIVE, () -> record(startTimes, 2)),
+                this.scheduler.schedule(UpstreamScheduler.Priority.INTERACTIVE, () -> record(startTimes, 3)))
+                .map(tuple -> List.of(tuple.getT1(), tuple.getT2(), tuple.getT3()))
+                .block(Duration.ofSeconds(5));
+
+        //Assert
+        assertEquals(List.of(1, 2, 3), results);
+        assertEquals(3, startTimes.size());
+        assertTrue(startTimes.get(2) - startTimes.get(0) >= Duration.ofMillis(350).toNanos());
+        assertEquals(3, this.scheduler.dispatchedCount());
+    }
+
+    @Test
+    void testFetchMerged_pendingRequestsSameCategory_mergedIntoOneCall(){
+        //Arrange
+        this.scheduler = scheduler(Duration.ofSeconds(1));
+        List<Integer> requestedAmounts = new CopyOnWriteArrayList<>();
+        UpstreamScheduler.QuestionsCall call = (amount, categoryId) -> {
+            requestedAmounts.add(amount);
+            return Mono.just(response(amount));
+        };
+        this.scheduler.schedule(UpstreamScheduler.Priority.INTERACTIVE, () -> Mono.just(0)).block();
+
+        //Act
+        List<TriviaQuestionsResponse> responses = Mono.zip(
+                this.scheduler.fetchMerged(10, 9L, UpstreamScheduler.Priority.INTERACTIVE, call),
+                this.scheduler.fetchMerged(5, 9L, UpstreamScheduler.Priority.INTERACTIVE, call))
+                .map(tuple -> List.of(tuple.getT1(), tuple.getT2()))
+                .block(Duration.ofSeconds(5));
+
+        //Assert
+        assertEquals(List.of(15), requestedAmounts);
+        assertEquals(10, responses.get(0).getResults().size());
+        assertEquals(5, responses.get(1).getResults().size());
+        assertEquals("Vraag 10", responses.get(1).getResults().getFirst().getQuestion());
+        assertEquals(1, this.scheduler.mergedRequestCount());
+    }
+
+    @Test
+    void testFetchMerged_interactiveJoinsBackgroundBatch_batchOvertakesQueuedInteractiveCall(){
+        //Arrange
+        this.scheduler = scheduler(Duration.ofMillis(300));
+        List<String> order = new CopyOnWriteArrayList<>();
+        UpstreamScheduler.QuestionsCall call = (amount, categoryId) -> {
+            order.add("batch");
+            return Mono.just(response(amount));
+        };
+        this.scheduler.schedule(UpstreamScheduler.Priority.INTERACTIVE, () -> Mono.just(0)).block();
+        Mono<TriviaQuestionsResponse> refill = this.scheduler.fetchMerged(10, 9L, UpstreamScheduler.Priority.BACKGROUND, call);
+        Mono<Integer> other = this.scheduler.schedule(UpstreamScheduler.Priority.INTERACTIVE, () -> {
+            order.add("other");
+            return Mono.just(1);
+        });
+
+        //Act
+        Mono.when(refill, other, this.scheduler.fetchMerged(5, 9L, UpstreamScheduler.Priority.INTERACTIVE, call))
+                .block(Duration.ofSeconds(5));
+
+        //Assert
+        assertEquals(List.of("batch", "other"), order);
+        assertEquals(1, this.scheduler.mergedRequestCount());
+    }
+
+    private static UpstreamScheduler scheduler(Duration refillPeriod){
+        TriviaProperties properties = new TriviaProperties();
+        properties.getUpstream().setBurst(1);
+        properties.getUpstream().setRefillPeriod(refillPeriod);
+        return new UpstreamScheduler(properties);
+    }
+
+    private static Mono<Integer> record(List<Long> startTimes, int value){
+        return Mono.fromSupplier(() -> {
+            startTimes.add(System.nanoTime());
+            return value;
+        });
+    }
+
+    private static TriviaQuestionsResponse response(int amount){
+        List<Question> questions = new ArrayList<>();
+        for(int i = 0; i < amount; i++){
+            Question question = new Question();
+            question.setQuestion("Vraag " + i);
+            questions.add(question);
+        }
+        return new TriviaQuestionsResponse(0, questions);
+    }
+}
@@ -63,8 +63,10 @@ export class TriviaComponent implements OnInit {
     if (!this.selectedAnswer) return;
 
     const answerDTO: AnswerDTO = {
+      question_id: this.questions[this.currentIndex].id,
       question: this.questions[this.currentIndex].question,
-      chosen_answer: this.selectedAnswer
+      chosen_answer: this.selectedAnswer,
+      answer_token: this.questions[this.currentIndex].answer_token
     };
     this.triviaService.checkAnswer(answerDTO).subscribe({
       next: (isCorrect) => {
@@ -1,4 +1,6 @@
 export interface AnswerDTO{
+    question_id?: number;
     question: string;
     chosen_answer: string;
+    answer_token?: string;
 }
\ No newline at end of file
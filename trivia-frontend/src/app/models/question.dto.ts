@@ -1,7 +1,9 @@
 export interface QuestionDTO{
+    id?: number;
     type: string;
     difficulty: string;
     category: string;
     question: string;
-    answers: string[]
+    answers: string[];
+    answer_token?: string;
 }
\ No newline at end of file